@@ -29,6 +29,7 @@ public class AdminSecurityConfig {
 
     private final TajwidBotProperties properties;
     private final AdminIpAllowlistFilter adminIpAllowlistFilter;
+    private final PublicApiRateLimitFilter publicApiRateLimitFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -46,6 +47,7 @@ public class AdminSecurityConfig {
             auth.anyRequest().permitAll();
         });
         http.addFilterBefore(adminIpAllowlistFilter, BasicAuthenticationFilter.class);
+        http.addFilterBefore(publicApiRateLimitFilter, BasicAuthenticationFilter.class);
 
         return http.build();
     }
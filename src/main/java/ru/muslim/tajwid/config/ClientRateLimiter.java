@@ -0,0 +1,109 @@
+package ru.muslim.tajwid.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class ClientRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final LongAdder evictions = new LongAdder();
+
+    ClientRateLimiter(double permitsPerSecond, int burst, int maxClients, int stripeCount) {
+        this.permitsPerSecond = Math.max(permitsPerSecond, 0.001);
+        this.burst = Math.max(1, burst);
+        int stripeSize = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, maxClients)));
+        int clientsPerStripe = Math.max(1, maxClients / stripeSize);
+        this.stripes = new Stripe[stripeSize];
+        for (int i = 0; i < stripeSize; i++) {
+            stripes[i] = new Stripe(clientsPerStripe);
+        }
+        this.stripeMask = stripeSize - 1;
+    }
+
+    long tryAcquire(String clientKey, long now) {
+        Stripe stripe = stripeFor(clientKey);
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(clientKey);
+            if (bucket == null) {
+                bucket = new Bucket(burst, now);
+                stripe.buckets.put(clientKey, bucket);
+            } else {
+                bucket.refill(now, permitsPerSecond, burst);
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return Math.max(1L, (long) Math.ceil((1 - bucket.tokens) * NANOS_PER_SECOND / permitsPerSecond));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    private Stripe stripeFor(String clientKey) {
+        int hash = clientKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets;
+
+        private Stripe(int maxClients) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    if (size() <= maxClients) {
+                        return false;
+                    }
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private void refill(long now, double tokensPerSecond, int burst) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerSecond / NANOS_PER_SECOND);
+            refilledAt = now;
+        }
+    }
+}
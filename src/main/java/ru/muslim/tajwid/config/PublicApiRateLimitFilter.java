@@ -0,0 +1,85 @@
+package ru.muslim.tajwid.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Component
+public class PublicApiRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicApiRateLimitFilter.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final TajwidBotProperties.PublicRateLimitProperties rateLimitProperties;
+    private final ClientRateLimiter limiter;
+    private final Counter allowedCounter;
+    private final Counter rejectedCounter;
+
+    public PublicApiRateLimitFilter(TajwidBotProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimitProperties = properties.getPublicRateLimit();
+        this.limiter = new ClientRateLimiter(
+            rateLimitProperties.getPermitsPerSecond(),
+            rateLimitProperties.getBurst(),
+            Math.max(1, rateLimitProperties.getTrackedClients()),
+            rateLimitProperties.getStripes()
+        );
+
+        this.allowedCounter = requestCounter(meterRegistry, "allowed");
+        this.rejectedCounter = requestCounter(meterRegistry, "rejected");
+        FunctionCounter.builder("tajwid.public.ratelimit.evictions", limiter, ClientRateLimiter::evictions)
+            .description("Idle client buckets evicted to keep the limiter within tracked-clients")
+            .register(meterRegistry);
+        Gauge.builder("tajwid.public.ratelimit.clients", limiter, ClientRateLimiter::size)
+            .description("Client buckets currently tracked by the public API limiter")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!rateLimitProperties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return path == null || !path.startsWith("/api/public/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientIp = request.getRemoteAddr();
+        long waitNanos = limiter.tryAcquire(StringUtils.hasText(clientIp) ? clientIp : "unknown", System.nanoTime());
+        if (waitNanos > 0) {
+            rejectedCounter.increment();
+            log.debug("Throttled public API request from IP {}", clientIp);
+            long retryAfterSeconds = Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+            return;
+        }
+
+        allowedCounter.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("tajwid.public.ratelimit.requests")
+            .description("Public API requests checked by the per-client rate limiter")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
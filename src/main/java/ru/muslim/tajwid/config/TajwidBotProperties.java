@@ -17,10 +17,74 @@ public class TajwidBotProperties {
     private Duration flow1ToFlow2Delay = Duration.ofMinutes(3);
     private Duration flow2IntroDelay = Duration.ofSeconds(40);
     private Duration automationTickDelay = Duration.ofSeconds(30);
+    private int subscriptionCheckParallelism = 8;
+    private AutomationProperties automation = new AutomationProperties();
+    private ExportProperties export = new ExportProperties();
+    private UserIndexProperties userIndex = new UserIndexProperties();
     private TelegramProperties telegram = new TelegramProperties();
     private AdminSecurityProperties adminSecurity = new AdminSecurityProperties();
+    private PublicRateLimitProperties publicRateLimit = new PublicRateLimitProperties();
     private RegistrationNotificationsProperties registrationNotifications = new RegistrationNotificationsProperties();
 
+    @Getter
+    @Setter
+    public static class AutomationProperties {
+
+        private int chunkSize = 100;
+        private int maxChunksPerTick = 20;
+        private Duration claimLease = Duration.ofMinutes(2);
+        private Duration pollDelay = Duration.ofMinutes(5);
+        private Duration referralRecheckInitialBackoff = Duration.ofMinutes(1);
+        private Duration referralRecheckMaxBackoff = Duration.ofHours(12);
+        private TimerWheelProperties timerWheel = new TimerWheelProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class TimerWheelProperties {
+
+        private boolean enabled = true;
+        private Duration tick = Duration.ofSeconds(1);
+        private int wheelSize = 512;
+    }
+
+    @Getter
+    @Setter
+    public static class ExportProperties {
+
+        private int fetchSize = 1000;
+        private CsvExportEngine csvEngine = CsvExportEngine.COPY;
+        private int deltaPageSize = 10000;
+        private Duration deltaSettleDelay = Duration.ofSeconds(5);
+        private ExportJobsProperties jobs = new ExportJobsProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class ExportJobsProperties {
+
+        private String spoolDir = "";
+        private int workers = 2;
+        private Duration retention = Duration.ofHours(1);
+        private Duration cleanupDelay = Duration.ofMinutes(10);
+    }
+
+    public enum CsvExportEngine {
+        JDBC,
+        COPY
+    }
+
+    @Getter
+    @Setter
+    public static class UserIndexProperties {
+
+        private Duration initialDelay = Duration.ZERO;
+        private Duration rebuildDelay = Duration.ofHours(1);
+        private Duration reconcileDelay = Duration.ofMinutes(5);
+        private Duration catchUpDelay = Duration.ofSeconds(30);
+        private Duration catchUpOverlap = Duration.ofMinutes(1);
+    }
+
     @Getter
     @Setter
     public static class TelegramProperties {
@@ -32,6 +96,66 @@ public class TajwidBotProperties {
         private String webhookUrl = "";
         private String schoolChannelId = "@tartil_madrasa";
         private String courseChannelId = "";
+        private IntakeProperties intake = new IntakeProperties();
+        private OutboxProperties outbox = new OutboxProperties();
+        private RateLimitProperties rateLimit = new RateLimitProperties();
+        private MembershipCacheProperties membershipCache = new MembershipCacheProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class IntakeProperties {
+
+        private boolean async;
+        private int stripes = 32;
+        private int queueCapacity = 200;
+        private int maxAttempts = 3;
+        private Duration retryDelay = Duration.ofSeconds(1);
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class OutboxProperties {
+
+        private boolean enabled = true;
+        private int workers = 8;
+        private int batchSize = 100;
+        private Duration pollDelay = Duration.ofSeconds(1);
+        private Duration lease = Duration.ofMinutes(2);
+        private int maxAttempts = 8;
+        private Duration initialBackoff = Duration.ofSeconds(5);
+        private Duration maxBackoff = Duration.ofMinutes(15);
+        private Duration sentRetention = Duration.ofDays(7);
+        private Duration purgeDelay = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class RateLimitProperties {
+
+        private boolean enabled = true;
+        private double globalPerSecond = 30;
+        private int globalBurst = 30;
+        private double perChatPerSecond = 1;
+        private int perChatBurst = 3;
+        private int automationReserve = 5;
+        private int broadcastReserve = 10;
+        private Duration maxWait = Duration.ofSeconds(30);
+        private Duration defaultRetryAfter = Duration.ofSeconds(5);
+        private int trackedChats = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class MembershipCacheProperties {
+
+        private boolean enabled = true;
+        private int maxEntries = 50_000;
+        private Duration positiveTtl = Duration.ofMinutes(10);
+        private Duration negativeTtl = Duration.ofSeconds(5);
+        private Duration courseNegativeTtl = Duration.ofMinutes(2);
+        private Duration indexNegativeTtl = Duration.ofMinutes(15);
     }
 
     @Getter
@@ -44,6 +168,17 @@ public class TajwidBotProperties {
         private List<String> allowedIps = List.of("127.0.0.1/32", "::1/128");
     }
 
+    @Getter
+    @Setter
+    public static class PublicRateLimitProperties {
+
+        private boolean enabled = true;
+        private double permitsPerSecond = 1;
+        private int burst = 10;
+        private int trackedClients = 10_000;
+        private int stripes = 16;
+    }
+
     @Getter
     @Setter
     public static class RegistrationNotificationsProperties {
@@ -0,0 +1,39 @@
+package ru.muslim.tajwid.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "channel_memberships")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ChannelMembershipEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_id", nullable = false)
+    private String chatId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "event_at", nullable = false)
+    private Instant eventAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -9,23 +9,29 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
 
 @Entity
 @Table(name = "flow_contexts")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
 public class FlowContextEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flow_contexts_seq")
+    @SequenceGenerator(name = "flow_contexts_seq", sequenceName = "flow_contexts_seq", allocationSize = 50)
     private Long id;
 
+    @NaturalId
     @Column(name = "user_id", nullable = false, unique = true)
     private Long userId;
 
@@ -95,6 +101,9 @@ public class FlowContextEntity {
     @Column(name = "referral_announcement_sent", nullable = false)
     private boolean referralAnnouncementSent;
 
+    @Column(name = "automation_claimed_until")
+    private Instant automationClaimedUntil;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
@@ -0,0 +1,7 @@
+package ru.muslim.tajwid.domain;
+
+public enum MessagePriority {
+    INTERACTIVE,
+    AUTOMATION,
+    BROADCAST
+}
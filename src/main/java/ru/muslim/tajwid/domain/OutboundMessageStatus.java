@@ -0,0 +1,7 @@
+package ru.muslim.tajwid.domain;
+
+public enum OutboundMessageStatus {
+    PENDING,
+    SENT,
+    DEAD
+}
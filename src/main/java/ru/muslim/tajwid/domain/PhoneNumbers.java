@@ -0,0 +1,22 @@
+package ru.muslim.tajwid.domain;
+
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    public static String digits(String phone) {
+        if (phone == null) {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                digits.append(ch);
+            }
+        }
+        return digits.isEmpty() ? null : digits.toString();
+    }
+}
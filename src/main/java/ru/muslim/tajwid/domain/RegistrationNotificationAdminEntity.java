@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import lombok.Getter;
@@ -21,7 +22,8 @@ import lombok.Setter;
 public class RegistrationNotificationAdminEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registration_notification_admins_seq")
+    @SequenceGenerator(name = "registration_notification_admins_seq", sequenceName = "registration_notification_admins_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "telegram_username", nullable = false, unique = true)
@@ -2,6 +2,7 @@ package ru.muslim.tajwid.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -11,12 +12,15 @@ import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.Instant;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.NaturalId;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,6 +30,7 @@ public class UserEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(name = "user_id", nullable = false, unique = true)
     private Long userId;
 
@@ -56,6 +61,10 @@ public class UserEntity {
     @Column(name = "phone")
     private String phone;
 
+    @Setter(AccessLevel.NONE)
+    @Column(name = "phone_digits")
+    private String phoneDigits;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "reading_level")
     private ReadingLevel readingLevel;
@@ -91,6 +100,15 @@ public class UserEntity {
     @Column(name = "referral_link_cp")
     private String referralLinkCp;
 
+    @Column(name = "automation_claimed_until")
+    private Instant automationClaimedUntil;
+
+    @Column(name = "referral_check_attempts", nullable = false)
+    private int referralCheckAttempts;
+
+    @Column(name = "referral_next_check_at")
+    private Instant referralNextCheckAt;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
@@ -118,6 +136,11 @@ public class UserEntity {
         updatedAt = Instant.now();
     }
 
+    public void setPhone(String phone) {
+        this.phone = phone;
+        this.phoneDigits = PhoneNumbers.digits(phone);
+    }
+
     public void incrementReferralPoints() {
         referralPoints += 1;
     }
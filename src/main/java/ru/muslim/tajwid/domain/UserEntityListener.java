@@ -0,0 +1,26 @@
+package ru.muslim.tajwid.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(UserEntity user) {
+        eventPublisher.publishEvent(new UserSavedEvent(user));
+    }
+
+    @PostRemove
+    public void onRemoved(UserEntity user) {
+        eventPublisher.publishEvent(new UserRemovedEvent(user.getUserId()));
+    }
+}
@@ -0,0 +1,4 @@
+package ru.muslim.tajwid.domain;
+
+public record UserSavedEvent(UserEntity user) {
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import lombok.Getter;
@@ -20,7 +21,8 @@ import lombok.Setter;
 public class UserTagEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_tags_seq")
+    @SequenceGenerator(name = "user_tags_seq", sequenceName = "user_tags_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
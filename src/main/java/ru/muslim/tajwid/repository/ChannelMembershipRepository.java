@@ -0,0 +1,30 @@
+package ru.muslim.tajwid.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.muslim.tajwid.domain.ChannelMembershipEntity;
+
+public interface ChannelMembershipRepository extends JpaRepository<ChannelMembershipEntity, Long> {
+
+    @Query("select m.status from ChannelMembershipEntity m "
+        + "where m.chatId = :chatId and m.userId = :userId "
+        + "and (m.status in ('member', 'administrator', 'creator') or m.eventAt > :negativeSince)")
+    Optional<String> findStatus(@Param("chatId") String chatId,
+                                @Param("userId") Long userId,
+                                @Param("negativeSince") Instant negativeSince);
+
+    @Modifying
+    @Query(value = "insert into channel_memberships (chat_id, user_id, status, event_at, updated_at) "
+        + "values (:chatId, :userId, :status, :eventAt, current_timestamp) "
+        + "on conflict (chat_id, user_id) do update "
+        + "set status = excluded.status, event_at = excluded.event_at, updated_at = current_timestamp "
+        + "where channel_memberships.event_at <= excluded.event_at", nativeQuery = true)
+    int upsertIfNewer(@Param("chatId") String chatId,
+                      @Param("userId") Long userId,
+                      @Param("status") String status,
+                      @Param("eventAt") Instant eventAt);
+}
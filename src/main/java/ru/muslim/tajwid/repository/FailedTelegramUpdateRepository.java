@@ -0,0 +1,7 @@
+package ru.muslim.tajwid.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.muslim.tajwid.domain.FailedTelegramUpdateEntity;
+
+public interface FailedTelegramUpdateRepository extends JpaRepository<FailedTelegramUpdateEntity, Long> {
+}
@@ -0,0 +1,9 @@
+package ru.muslim.tajwid.repository;
+
+import java.util.Optional;
+import ru.muslim.tajwid.domain.FlowContextEntity;
+
+public interface FlowContextNaturalIdRepository {
+
+    Optional<FlowContextEntity> findByNaturalId(Long userId);
+}
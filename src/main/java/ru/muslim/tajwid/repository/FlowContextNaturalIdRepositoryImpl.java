@@ -0,0 +1,23 @@
+package ru.muslim.tajwid.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Optional;
+import org.hibernate.Session;
+import ru.muslim.tajwid.domain.FlowContextEntity;
+
+class FlowContextNaturalIdRepositoryImpl implements FlowContextNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<FlowContextEntity> findByNaturalId(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(FlowContextEntity.class)
+            .loadOptional(userId);
+    }
+}
@@ -5,17 +5,49 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.muslim.tajwid.domain.FlowContextEntity;
+import ru.muslim.tajwid.domain.FlowStep;
 
-public interface FlowContextRepository extends JpaRepository<FlowContextEntity, Long> {
+public interface FlowContextRepository extends JpaRepository<FlowContextEntity, Long>, FlowContextNaturalIdRepository {
 
     Optional<FlowContextEntity> findByUserId(Long userId);
 
     Optional<FlowContextEntity> findByTelegramUsernameIgnoreCase(String telegramUsername);
 
-    List<FlowContextEntity> findByReferralAnnouncementSentFalseAndReferralAnnouncementDueAtLessThanEqual(Instant dueAt);
+    @Query(value = "select fc.user_id from flow_contexts fc "
+        + "where fc.referral_announcement_sent = false "
+        + "and fc.referral_announcement_due_at <= :now "
+        + "and (fc.automation_claimed_until is null or fc.automation_claimed_until <= :now) "
+        + "order by fc.referral_announcement_due_at, fc.user_id "
+        + "limit :limit "
+        + "for update skip locked", nativeQuery = true)
+    List<Long> lockDueReferralAnnouncementUserIds(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update FlowContextEntity fc set fc.automationClaimedUntil = :claimedUntil where fc.userId in :userIds")
+    int updateAutomationClaimedUntil(@Param("userIds") Collection<Long> userIds,
+                                     @Param("claimedUntil") Instant claimedUntil);
+
+    @Query("select count(fc) from FlowContextEntity fc "
+        + "where fc.referralAnnouncementSent = false and fc.referralAnnouncementDueAt <= :dueAt "
+        + "and fc.currentStep in :steps")
+    long countDueReferralAnnouncements(@Param("dueAt") Instant dueAt, @Param("steps") Collection<FlowStep> steps);
+
+    @Query("select min(fc.referralAnnouncementDueAt) from FlowContextEntity fc "
+        + "where fc.referralAnnouncementSent = false and fc.currentStep in :steps")
+    Instant findOldestReferralAnnouncementDueAt(@Param("steps") Collection<FlowStep> steps);
+
+    @Query("select new ru.muslim.tajwid.repository.ReferralAnnouncementDue(fc.userId, fc.referralAnnouncementDueAt) "
+        + "from FlowContextEntity fc "
+        + "where fc.referralAnnouncementSent = false and fc.referralAnnouncementDueAt <= :until "
+        + "and fc.currentStep in :steps")
+    List<ReferralAnnouncementDue> findReferralAnnouncementsDueBefore(@Param("until") Instant until,
+                                                                     @Param("steps") Collection<FlowStep> steps);
+
+    List<FlowContextEntity> findAllByUserIdIn(Collection<Long> userIds);
 
     @Query("select distinct fc.userId from FlowContextEntity fc "
         + "where fc.telegramUsername is not null and lower(fc.telegramUsername) in :usernames")
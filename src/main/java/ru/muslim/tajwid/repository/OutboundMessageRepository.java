@@ -0,0 +1,54 @@
+package ru.muslim.tajwid.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.muslim.tajwid.domain.OutboundMessageEntity;
+
+public interface OutboundMessageRepository extends JpaRepository<OutboundMessageEntity, Long> {
+
+    @Query(value = "with heads as ("
+        + "  select distinct on (h.recipient_user_id) h.id from outbound_messages h "
+        + "  where h.status = 'PENDING' "
+        + "  order by h.recipient_user_id, h.id"
+        + ") "
+        + "select m.id from outbound_messages m "
+        + "join heads on heads.id = m.id "
+        + "where m.status = 'PENDING' "
+        + "and m.next_attempt_at <= :now "
+        + "and (m.locked_until is null or m.locked_until <= :now) "
+        + "order by m.id "
+        + "limit :limit "
+        + "for update of m skip locked", nativeQuery = true)
+    List<Long> lockDueHeadIds(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Query(value = "select m.id from outbound_messages m "
+        + "where m.recipient_user_id in ("
+        + "  select h.recipient_user_id from outbound_messages h where h.id in (:headIds)"
+        + ") "
+        + "and m.status = 'PENDING' "
+        + "and m.next_attempt_at <= :now "
+        + "and (m.locked_until is null or m.locked_until <= :now) "
+        + "and not exists ("
+        + "  select 1 from outbound_messages e "
+        + "  where e.recipient_user_id = m.recipient_user_id "
+        + "  and e.status = 'PENDING' "
+        + "  and e.id < m.id "
+        + "  and (e.next_attempt_at > :now or e.locked_until > :now)"
+        + ") "
+        + "order by m.id "
+        + "limit :limit "
+        + "for update of m", nativeQuery = true)
+    List<Long> lockDueRunIds(@Param("headIds") Collection<Long> headIds,
+                             @Param("now") Instant now,
+                             @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OutboundMessageEntity m "
+        + "where m.status = ru.muslim.tajwid.domain.OutboundMessageStatus.SENT and m.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,6 @@
+package ru.muslim.tajwid.repository;
+
+import java.time.Instant;
+
+public record ReferralAnnouncementDue(Long userId, Instant dueAt) {
+}
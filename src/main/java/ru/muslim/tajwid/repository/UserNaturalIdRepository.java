@@ -0,0 +1,9 @@
+package ru.muslim.tajwid.repository;
+
+import java.util.Optional;
+import ru.muslim.tajwid.domain.UserEntity;
+
+public interface UserNaturalIdRepository {
+
+    Optional<UserEntity> findByNaturalId(Long userId);
+}
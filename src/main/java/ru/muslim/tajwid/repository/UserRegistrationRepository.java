@@ -0,0 +1,8 @@
+package ru.muslim.tajwid.repository;
+
+import ru.muslim.tajwid.domain.UserEntity;
+
+public interface UserRegistrationRepository {
+
+    UserEntity refreshUpserted(UserEntity upserted, UserEntity registration);
+}
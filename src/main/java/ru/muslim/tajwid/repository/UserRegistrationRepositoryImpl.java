@@ -0,0 +1,27 @@
+package ru.muslim.tajwid.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.temporal.ChronoUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.muslim.tajwid.domain.UserEntity;
+import ru.muslim.tajwid.domain.UserSavedEvent;
+
+@RequiredArgsConstructor
+class UserRegistrationRepositoryImpl implements UserRegistrationRepository {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public UserEntity refreshUpserted(UserEntity upserted, UserEntity registration) {
+        if (!registration.getUpdatedAt().truncatedTo(ChronoUnit.MICROS).equals(upserted.getUpdatedAt())) {
+            entityManager.refresh(upserted);
+        }
+        eventPublisher.publishEvent(new UserSavedEvent(upserted));
+        return upserted;
+    }
+}
@@ -1,32 +1,115 @@
 package ru.muslim.tajwid.repository;
 
 import jakarta.persistence.LockModeType;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.muslim.tajwid.domain.ReferralStatus;
 import ru.muslim.tajwid.domain.UserEntity;
 
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository extends JpaRepository<UserEntity, Long>,
+    JpaSpecificationExecutor<UserEntity>,
+    UserNaturalIdRepository,
+    UserRegistrationRepository {
 
     Optional<UserEntity> findByUserId(Long userId);
 
     Optional<UserEntity> findByTelegramUsernameIgnoreCase(String telegramUsername);
 
-    List<UserEntity> findAllByReferralStatusAndRegistrationCompletedTrue(ReferralStatus referralStatus);
-
     boolean existsByUserId(Long userId);
 
+    boolean existsByUserIdAndPhoneDigits(Long userId, String phoneDigits);
+
+    Optional<UserEntity> findByUserIdAndPhoneDigits(Long userId, String phoneDigits);
+
+    List<UserEntity> findByPhoneDigitsOrderByUserId(String phoneDigits, Limit limit);
+
     boolean existsByUserIdAndReferralStatusIn(Long userId, Collection<ReferralStatus> statuses);
 
     @Query("select distinct u.userId from UserEntity u "
         + "where u.telegramUsername is not null and lower(u.telegramUsername) in :usernames")
     List<Long> findUserIdsByTelegramUsernameIn(@Param("usernames") Collection<String> usernames);
 
+    List<UserEntity> findAllByUserIdIn(Collection<Long> userIds);
+
+    @Query(value = "select u.user_id from users u "
+        + "where u.referral_status = 'PENDING' "
+        + "and u.registration_completed = true "
+        + "and u.referrer_user_id > 0 "
+        + "and (u.referral_next_check_at is null or u.referral_next_check_at <= :now) "
+        + "and (u.automation_claimed_until is null or u.automation_claimed_until <= :now) "
+        + "order by u.referral_next_check_at nulls first, u.user_id "
+        + "limit :limit "
+        + "for update skip locked", nativeQuery = true)
+    List<Long> lockPendingReferralAwardUserIds(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Query("select count(u) from UserEntity u "
+        + "where u.referralStatus = ru.muslim.tajwid.domain.ReferralStatus.PENDING "
+        + "and u.registrationCompleted = true and u.referrerUserId > 0 "
+        + "and (u.referralNextCheckAt is null or u.referralNextCheckAt <= :now)")
+    long countPendingReferralAwards(@Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update UserEntity u set u.automationClaimedUntil = :claimedUntil where u.userId in :userIds")
+    int updateAutomationClaimedUntil(@Param("userIds") Collection<Long> userIds,
+                                     @Param("claimedUntil") Instant claimedUntil);
+
+    @Modifying
+    @Query("update UserEntity u set u.referralCheckAttempts = :attempts, u.referralNextCheckAt = :nextCheckAt "
+        + "where u.userId = :userId")
+    int updateReferralCheckBackoff(@Param("userId") Long userId,
+                                   @Param("attempts") int attempts,
+                                   @Param("nextCheckAt") Instant nextCheckAt);
+
+    @Query(value = """
+        insert into users (user_id, telegram_first_name, telegram_username, user_name, age,
+                           has_children, children_count, children_ages, children_study_quran,
+                           phone, phone_digits, reading_level,
+                           is_school_channel_subscribed, is_course_channel_subscribed, consent_given,
+                           registration_completed, registration_completed_at,
+                           referrer_user_id, referral_status, referral_counted_at, created_at, updated_at)
+        values (:#{#user.userId}, :#{#user.telegramFirstName}, :#{#user.telegramUsername},
+                :#{#user.userName}, cast(:#{#user.age} as integer),
+                cast(:#{#user.hasChildren} as boolean), cast(:#{#user.childrenCount} as integer),
+                :#{#user.childrenAges}, cast(:#{#user.childrenStudyQuran} as boolean),
+                :#{#user.phone}, :#{#user.phoneDigits}, :#{#user.readingLevel?.name()},
+                :#{#user.schoolChannelSubscribed}, :#{#user.courseChannelSubscribed}, :#{#user.consentGiven},
+                :#{#user.registrationCompleted}, :#{#user.registrationCompletedAt},
+                :#{#user.referrerUserId}, :#{#user.referralStatus.name()}, :#{#user.referralCountedAt},
+                :#{#user.updatedAt}, :#{#user.updatedAt})
+        on conflict (user_id) do update set
+            telegram_first_name = excluded.telegram_first_name,
+            telegram_username = excluded.telegram_username,
+            user_name = excluded.user_name,
+            age = excluded.age,
+            has_children = excluded.has_children,
+            children_count = excluded.children_count,
+            children_ages = excluded.children_ages,
+            children_study_quran = excluded.children_study_quran,
+            phone = excluded.phone,
+            phone_digits = excluded.phone_digits,
+            reading_level = excluded.reading_level,
+            is_school_channel_subscribed = excluded.is_school_channel_subscribed,
+            is_course_channel_subscribed = excluded.is_course_channel_subscribed,
+            consent_given = excluded.consent_given,
+            registration_completed = excluded.registration_completed,
+            registration_completed_at = excluded.registration_completed_at,
+            referrer_user_id = excluded.referrer_user_id,
+            referral_status = excluded.referral_status,
+            referral_counted_at = excluded.referral_counted_at,
+            updated_at = excluded.updated_at
+        returning *
+        """, nativeQuery = true)
+    UserEntity upsertRegistration(@Param("user") UserEntity user);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select u from UserEntity u where u.userId = :userId")
     Optional<UserEntity> findByUserIdForUpdate(@Param("userId") Long userId);
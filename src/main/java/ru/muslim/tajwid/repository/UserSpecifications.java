@@ -0,0 +1,57 @@
+package ru.muslim.tajwid.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+import ru.muslim.tajwid.domain.ReadingLevel;
+import ru.muslim.tajwid.domain.UserEntity;
+
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<UserEntity> childrenSearch(Collection<Long> userIds,
+                                                           Boolean hasChildren,
+                                                           Boolean childrenStudyQuran,
+                                                           Collection<ReadingLevel> readingLevels,
+                                                           Boolean registrationCompleted,
+                                                           Long afterUserId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (afterUserId != null) {
+                predicates.add(cb.greaterThan(root.get("userId"), afterUserId));
+            }
+            if (userIds != null && !userIds.isEmpty()) {
+                predicates.add(root.get("userId").in(userIds));
+            }
+            if (hasChildren != null) {
+                predicates.add(hasChildren(root, cb, hasChildren));
+            }
+            if (childrenStudyQuran != null) {
+                predicates.add(cb.equal(root.get("childrenStudyQuran"), childrenStudyQuran));
+            }
+            if (readingLevels != null && !readingLevels.isEmpty()) {
+                predicates.add(root.get("readingLevel").in(readingLevels));
+            }
+            if (registrationCompleted != null) {
+                predicates.add(cb.equal(root.get("registrationCompleted"), registrationCompleted));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static Predicate hasChildren(Root<UserEntity> root, CriteriaBuilder cb, boolean hasChildren) {
+        Predicate derivedFromCount = hasChildren
+            ? cb.greaterThan(root.get("childrenCount"), 0)
+            : cb.lessThanOrEqualTo(root.get("childrenCount"), 0);
+        return cb.or(
+            cb.equal(root.get("hasChildren"), hasChildren),
+            cb.and(cb.isNull(root.get("hasChildren")), derivedFromCount)
+        );
+    }
+}
@@ -1,7 +1,12 @@
 package ru.muslim.tajwid.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.muslim.tajwid.domain.UserTagEntity;
 
 public interface UserTagRepository extends JpaRepository<UserTagEntity, Long> {
@@ -9,4 +14,12 @@ public interface UserTagRepository extends JpaRepository<UserTagEntity, Long> {
     boolean existsByUserIdAndTag(Long userId, String tag);
 
     List<UserTagEntity> findAllByUserId(Long userId);
+
+    @Modifying
+    @Query(value = "insert into user_tags (user_id, tag, created_at) "
+        + "select :userId, tag, :createdAt from unnest(array[:tags]) as tag "
+        + "on conflict (user_id, tag) do nothing", nativeQuery = true)
+    int insertMissing(@Param("userId") long userId,
+                      @Param("tags") Collection<String> tags,
+                      @Param("createdAt") Instant createdAt);
 }
@@ -1,16 +1,21 @@
 package ru.muslim.tajwid.service;
 
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import ru.muslim.tajwid.domain.PhoneNumbers;
 import ru.muslim.tajwid.domain.ReadingLevel;
 import ru.muslim.tajwid.domain.UserEntity;
 import ru.muslim.tajwid.repository.UserRepository;
+import ru.muslim.tajwid.repository.UserSpecifications;
 import ru.muslim.tajwid.web.dto.AdminChildrenSearchRequest;
 import ru.muslim.tajwid.web.dto.AdminChildrenUserResponse;
 
@@ -22,24 +27,37 @@ public class AdminChildrenService {
     private static final int MAX_LIMIT = 1000;
 
     private final UserRepository userRepository;
+    private final UserAttributeStore userAttributeStore;
 
     public Optional<AdminChildrenUserResponse> getByUserId(Long userId) {
         return userRepository.findByUserId(userId)
             .map(this::toResponse);
     }
 
+    public List<AdminChildrenUserResponse> findByPhone(String phone, Integer limit) {
+        String phoneDigits = PhoneNumbers.digits(phone);
+        if (phoneDigits == null) {
+            return List.of();
+        }
+        return userRepository.findByPhoneDigitsOrderByUserId(phoneDigits, Limit.of(normalizeLimit(limit))).stream()
+            .map(this::toResponse)
+            .toList();
+    }
+
     public List<AdminChildrenUserResponse> getUsers(Boolean hasChildren,
                                                     Boolean childrenStudyQuran,
                                                     List<ReadingLevel> readingLevels,
                                                     Boolean registrationCompleted,
-                                                    Integer limit) {
+                                                    Integer limit,
+                                                    Long afterUserId) {
         return searchInternal(
             null,
             hasChildren,
             childrenStudyQuran,
             readingLevels,
             registrationCompleted,
-            limit
+            limit,
+            afterUserId
         );
     }
 
@@ -51,7 +69,8 @@ public class AdminChildrenService {
             safeRequest.childrenStudyQuran(),
             safeRequest.readingLevels(),
             safeRequest.registrationCompleted(),
-            safeRequest.limit()
+            safeRequest.limit(),
+            safeRequest.afterUserId()
         );
     }
 
@@ -60,23 +79,49 @@ public class AdminChildrenService {
                                                            Boolean childrenStudyQuran,
                                                            List<ReadingLevel> readingLevels,
                                                            Boolean registrationCompleted,
-                                                           Integer limit) {
+                                                           Integer limit,
+                                                           Long afterUserId) {
         int normalizedLimit = normalizeLimit(limit);
-        Set<Long> userIdFilter = userIds == null ? Set.of() : new HashSet<>(userIds);
-        Set<ReadingLevel> readingLevelFilter = readingLevels == null
-            ? Set.of()
-            : new HashSet<>(readingLevels);
+        UserAttributeFilter filter = new UserAttributeFilter(
+            userIds,
+            hasChildren,
+            childrenStudyQuran,
+            readingLevels,
+            registrationCompleted
+        );
+        Optional<List<Long>> indexedUserIds = userAttributeStore.findUserIds(filter, afterUserId, normalizedLimit);
+        if (indexedUserIds.isPresent()) {
+            return loadInOrder(indexedUserIds.get());
+        }
 
-        return userRepository.findAll(Sort.by("userId")).stream()
-            .filter(user -> userIdFilter.isEmpty() || userIdFilter.contains(user.getUserId()))
-            .filter(user -> hasChildren == null || Objects.equals(hasChildren, resolveHasChildren(user)))
-            .filter(user -> childrenStudyQuran == null
-                || Objects.equals(childrenStudyQuran, user.getChildrenStudyQuran()))
-            .filter(user -> readingLevelFilter.isEmpty()
-                || (user.getReadingLevel() != null && readingLevelFilter.contains(user.getReadingLevel())))
-            .filter(user -> registrationCompleted == null
-                || registrationCompleted.equals(user.isRegistrationCompleted()))
-            .limit(normalizedLimit)
+        Specification<UserEntity> specification = UserSpecifications.childrenSearch(
+            userIds,
+            hasChildren,
+            childrenStudyQuran,
+            readingLevels,
+            registrationCompleted,
+            afterUserId
+        );
+
+        List<UserEntity> users = userRepository.findBy(
+            specification,
+            query -> query.sortBy(Sort.by("userId")).limit(normalizedLimit).all()
+        );
+        return users.stream()
+            .map(this::toResponse)
+            .toList();
+    }
+
+    private List<AdminChildrenUserResponse> loadInOrder(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserEntity> usersById = userRepository.findAllByUserIdIn(userIds).stream()
+            .collect(Collectors.toMap(UserEntity::getUserId, Function.identity()));
+        return userIds.stream()
+            .map(usersById::get)
+            .filter(Objects::nonNull)
             .map(this::toResponse)
             .toList();
     }
@@ -88,7 +133,7 @@ public class AdminChildrenService {
             entity.getTelegramUsername(),
             entity.getUserName(),
             entity.getAge(),
-            resolveHasChildren(entity),
+            UserAttributes.resolveHasChildren(entity.getHasChildren(), entity.getChildrenCount()),
             entity.getChildrenStudyQuran(),
             entity.getPhone(),
             entity.getReadingLevel(),
@@ -98,17 +143,6 @@ public class AdminChildrenService {
         );
     }
 
-    private Boolean resolveHasChildren(UserEntity user) {
-        if (user.getHasChildren() != null) {
-            return user.getHasChildren();
-        }
-        Integer childrenCount = user.getChildrenCount();
-        if (childrenCount == null) {
-            return null;
-        }
-        return childrenCount > 0;
-    }
-
     private int normalizeLimit(Integer limit) {
         if (limit == null) {
             return DEFAULT_LIMIT;
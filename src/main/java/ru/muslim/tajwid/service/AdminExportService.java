@@ -1,260 +1,295 @@
 package ru.muslim.tajwid.service;
 
-import java.util.Arrays;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
-import ru.muslim.tajwid.domain.FlowContextEntity;
-import ru.muslim.tajwid.domain.ReferralLinkUsageEntity;
-import ru.muslim.tajwid.domain.UserEntity;
-import ru.muslim.tajwid.domain.UserTagEntity;
-import ru.muslim.tajwid.repository.FlowContextRepository;
-import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
-import ru.muslim.tajwid.repository.UserRepository;
-import ru.muslim.tajwid.repository.UserTagRepository;
-import ru.muslim.tajwid.web.dto.AdminExportFlowContextRow;
-import ru.muslim.tajwid.web.dto.AdminExportReferralLinkUsageRow;
-import ru.muslim.tajwid.web.dto.AdminExportSnapshotResponse;
-import ru.muslim.tajwid.web.dto.AdminExportUserRow;
-import ru.muslim.tajwid.web.dto.AdminExportUserTagRow;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
 
 @Service
 @RequiredArgsConstructor
 public class AdminExportService {
 
-    private final UserRepository userRepository;
-    private final FlowContextRepository flowContextRepository;
-    private final UserTagRepository userTagRepository;
-    private final ReferralLinkUsageRepository referralLinkUsageRepository;
-    private final AdminExportMapper exportMapper;
-
-    public AdminExportSnapshotResponse exportSnapshot() {
-        return new AdminExportSnapshotResponse(
-            fetchUsers(),
-            fetchFlowContexts(),
-            fetchUserTags(),
-            fetchReferralLinkUsages()
-        );
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TajwidBotProperties properties;
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void writeSnapshotJson(OutputStream output) {
+        try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+            generator.writeStartObject();
+            for (ExportTable table : ExportTable.SNAPSHOT) {
+                generator.writeName(table.snapshotName());
+                generator.writeStartArray();
+                queryForEach(table.selectSql(), resultSet -> {
+                    List<String> fieldNames = jsonFieldNames(resultSet.getMetaData());
+                    while (resultSet.next()) {
+                        writeJsonRow(generator, resultSet, fieldNames);
+                    }
+                });
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
     }
 
-    public String exportUsersCsv() {
-        List<? extends List<?>> rows = fetchUsers().stream()
-            .map(row -> csvRow(
-                row.userId(),
-                row.telegramFirstName(),
-                row.telegramUsername(),
-                row.userName(),
-                row.age(),
-                row.hasChildren(),
-                row.childrenCount(),
-                row.childrenAges(),
-                row.childrenStudyQuran(),
-                row.phone(),
-                row.readingLevel(),
-                row.schoolChannelSubscribed(),
-                row.courseChannelSubscribed(),
-                row.consentGiven(),
-                row.registrationCompleted(),
-                row.registrationCompletedAt(),
-                row.referrerUserId(),
-                row.referralStatus(),
-                row.referralCountedAt(),
-                row.referralPoints(),
-                row.referralLinkCp(),
-                row.createdAt(),
-                row.updatedAt()
-            ))
-            .toList();
-
-        return buildCsv(
-            List.of(
-                "user_id",
-                "telegram_first_name",
-                "telegram_username",
-                "user_name",
-                "age",
-                "has_children",
-                "children_count",
-                "children_ages",
-                "children_study_quran",
-                "phone",
-                "reading_level",
-                "is_school_channel_subscribed",
-                "is_course_channel_subscribed",
-                "consent_given",
-                "registration_completed",
-                "registration_completed_at",
-                "referrer_user_id",
-                "referral_status",
-                "referral_counted_at",
-                "referral_points",
-                "referral_link_cp",
-                "created_at",
-                "updated_at"
-            ),
-            rows
-        );
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void writeSnapshotNdjson(OutputStream output) {
+        try (JsonGenerator generator = objectMapper.writer().withRootValueSeparator("\n").createGenerator(output)) {
+            for (ExportTable table : ExportTable.SNAPSHOT) {
+                queryForEach(table.selectSql(), resultSet -> {
+                    List<String> fieldNames = jsonFieldNames(resultSet.getMetaData());
+                    while (resultSet.next()) {
+                        generator.writeStartObject();
+                        generator.writeStringProperty("table", table.snapshotName());
+                        generator.writeName("row");
+                        writeJsonRow(generator, resultSet, fieldNames);
+                        generator.writeEndObject();
+                    }
+                });
+            }
+            generator.writeRaw('\n');
+        }
     }
 
-    public String exportFlowContextsCsv() {
-        List<? extends List<?>> rows = fetchFlowContexts().stream()
-            .map(row -> csvRow(
-                row.userId(),
-                row.telegramFirstName(),
-                row.telegramUsername(),
-                row.currentStep(),
-                row.flowType(),
-                row.userName(),
-                row.age(),
-                row.hasChildren(),
-                row.childrenCount(),
-                row.childrenAges(),
-                row.childrenStudyQuran(),
-                row.childrenAgeIndex(),
-                row.phone(),
-                row.readingLevel(),
-                row.consentGiven(),
-                row.schoolChannelSubscribed(),
-                row.referrerUserId(),
-                row.referralEntrySource(),
-                row.referralEntryAt(),
-                row.tempTags(),
-                row.referralAnnouncementDueAt(),
-                row.referralAnnouncementSent(),
-                row.createdAt(),
-                row.updatedAt()
-            ))
-            .toList();
-
-        return buildCsv(
-            List.of(
-                "user_id",
-                "telegram_first_name",
-                "telegram_username",
-                "current_step",
-                "flow_type",
-                "user_name",
-                "age",
-                "has_children",
-                "children_count",
-                "children_ages",
-                "children_study_quran",
-                "children_age_index",
-                "phone",
-                "reading_level",
-                "consent_given",
-                "school_channel_subscribed",
-                "referrer_user_id",
-                "referral_entry_source",
-                "referral_entry_at",
-                "temp_tags",
-                "referral_announcement_due_at",
-                "referral_announcement_sent",
-                "created_at",
-                "updated_at"
-            ),
-            rows
-        );
+    @Transactional(readOnly = true)
+    public void writeUsersCsv(OutputStream output) {
+        writeCsv(output, ExportTable.USERS, properties.getExport().getCsvEngine());
     }
 
-    public String exportUserTagsCsv() {
-        List<? extends List<?>> rows = fetchUserTags().stream()
-            .map(row -> csvRow(
-                row.userId(),
-                row.tag(),
-                row.createdAt()
-            ))
-            .toList();
-
-        return buildCsv(
-            List.of("user_id", "tag", "created_at"),
-            rows
-        );
+    @Transactional(readOnly = true)
+    public void writeFlowContextsCsv(OutputStream output) {
+        writeCsv(output, ExportTable.FLOW_CONTEXTS, properties.getExport().getCsvEngine());
     }
 
-    public String exportReferralLinkUsagesCsv() {
-        List<? extends List<?>> rows = fetchReferralLinkUsages().stream()
-            .map(row -> csvRow(
-                row.referralEventId(),
-                row.referralLink(),
-                row.referrerUserId(),
-                row.inviteeUserId(),
-                row.idempotencyKey(),
-                row.alreadyCounted(),
-                row.countedAt(),
-                row.triggerSource(),
-                row.triggeredAt(),
-                row.createdAt()
-            ))
-            .toList();
-
-        return buildCsv(
-            List.of(
-                "referral_event_id",
-                "referral_link",
-                "referrer_user_id",
-                "invitee_user_id",
-                "idempotency_key",
-                "is_already_counted",
-                "counted_at",
-                "trigger_source",
-                "triggered_at",
-                "created_at"
-            ),
-            rows
-        );
+    @Transactional(readOnly = true)
+    public void writeUserTagsCsv(OutputStream output) {
+        writeCsv(output, ExportTable.USER_TAGS, properties.getExport().getCsvEngine());
     }
 
-    private List<AdminExportUserRow> fetchUsers() {
-        List<UserEntity> entities = userRepository.findAll(Sort.by("userId"));
-        return entities.stream()
-            .map(exportMapper::toUserRow)
-            .toList();
+    @Transactional(readOnly = true)
+    public void writeReferralLinkUsagesCsv(OutputStream output) {
+        writeCsv(output, ExportTable.REFERRAL_LINK_USAGES, properties.getExport().getCsvEngine());
     }
 
-    private List<AdminExportFlowContextRow> fetchFlowContexts() {
-        List<FlowContextEntity> entities = flowContextRepository.findAll(Sort.by("userId"));
-        return entities.stream()
-            .map(exportMapper::toFlowContextRow)
-            .toList();
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public String dataVersion(ExportJobFormat format) {
+        return format.tables().stream()
+            .map(table -> jdbcTemplate.queryForObject(table.versionSql(), String.class))
+            .collect(Collectors.joining(";"));
     }
 
-    private List<AdminExportUserTagRow> fetchUserTags() {
-        List<UserTagEntity> entities = userTagRepository.findAll(
-            Sort.by("userId").ascending().and(Sort.by("createdAt").ascending())
+    @Transactional(readOnly = true)
+    public ExportDelta planUsersDelta(ExportCursor since, Integer limit) {
+        return planDelta(ExportTable.USERS, since, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public ExportDelta planFlowContextsDelta(ExportCursor since, Integer limit) {
+        return planDelta(ExportTable.FLOW_CONTEXTS, since, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public void writeUsersDeltaCsv(OutputStream output, ExportDelta delta) {
+        writeDeltaCsv(output, ExportTable.USERS, delta);
+    }
+
+    @Transactional(readOnly = true)
+    public void writeFlowContextsDeltaCsv(OutputStream output, ExportDelta delta) {
+        writeDeltaCsv(output, ExportTable.FLOW_CONTEXTS, delta);
+    }
+
+    void writeCsv(OutputStream output, ExportTable table, TajwidBotProperties.CsvExportEngine engine) {
+        if (engine == TajwidBotProperties.CsvExportEngine.COPY) {
+            copyCsv(output, table);
+        } else {
+            streamCsv(output, table.selectSql());
+        }
+    }
+
+    private ExportDelta planDelta(ExportTable table, ExportCursor since, Integer limit) {
+        TajwidBotProperties.ExportProperties export = properties.getExport();
+        int pageSize = Math.clamp(limit == null ? export.getDeltaPageSize() : limit, 1, export.getDeltaPageSize());
+        Timestamp settledBefore = Timestamp.from(Instant.now().minus(export.getDeltaSettleDelay()));
+        Timestamp sinceUpdatedAt = Timestamp.from(since.updatedAt());
+
+        List<ExportCursor> boundary = jdbcTemplate.query(
+            table.deltaBoundarySql(),
+            (resultSet, rowNum) -> readCursor(resultSet),
+            sinceUpdatedAt,
+            since.id(),
+            settledBefore,
+            pageSize - 1
         );
-        return entities.stream()
-            .map(exportMapper::toUserTagRow)
-            .toList();
+        if (!boundary.isEmpty()) {
+            return new ExportDelta(since, boundary.getFirst(), boundary.size() > 1);
+        }
+
+        ExportCursor until = jdbcTemplate.query(
+            table.deltaLastSql(),
+            (resultSet, rowNum) -> readCursor(resultSet),
+            sinceUpdatedAt,
+            since.id(),
+            settledBefore
+        ).stream().findFirst().orElse(since);
+        return new ExportDelta(since, until, false);
     }
 
-    private List<AdminExportReferralLinkUsageRow> fetchReferralLinkUsages() {
-        List<ReferralLinkUsageEntity> entities = referralLinkUsageRepository.findAll(
-            Sort.by("triggeredAt").ascending().and(Sort.by("createdAt").ascending())
+    private void writeDeltaCsv(OutputStream output, ExportTable table, ExportDelta delta) {
+        streamCsv(
+            output,
+            table.deltaSelectSql(),
+            Timestamp.from(delta.since().updatedAt()),
+            delta.since().id(),
+            Timestamp.from(delta.until().updatedAt()),
+            delta.until().id()
         );
-        return entities.stream()
-            .map(exportMapper::toReferralLinkUsageRow)
-            .toList();
     }
 
-    private String buildCsv(List<String> header, List<? extends List<?>> rows) {
-        StringBuilder csv = new StringBuilder();
-        appendCsvRow(csv, header);
-        for (List<?> row : rows) {
-            appendCsvRow(csv, row);
+    private ExportCursor readCursor(ResultSet resultSet) throws SQLException {
+        return new ExportCursor(resultSet.getTimestamp("updated_at").toInstant(), resultSet.getLong("id"));
+    }
+
+    private void copyCsv(OutputStream output, ExportTable table) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return new CopyManager(connection.unwrap(BaseConnection.class)).copyOut(table.copySql(), output);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private void queryForEach(String sql, RowStreamer streamer, Object... args) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                sql,
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY
+            );
+            statement.setFetchSize(Math.max(1, properties.getExport().getFetchSize()));
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, (ResultSetExtractor<Void>) resultSet -> {
+            streamer.stream(resultSet);
+            return null;
+        });
+    }
+
+    private void streamCsv(OutputStream output, String sql, Object... args) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        queryForEach(sql, resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            Object[] values = new Object[columnCount];
+
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = metaData.getColumnLabel(i + 1);
+            }
+            appendCsvRow(writer, values);
+
+            while (resultSet.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = readValue(resultSet, i + 1);
+                }
+                appendCsvRow(writer, values);
+            }
+        }, args);
+
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeJsonRow(JsonGenerator generator, ResultSet resultSet, List<String> fieldNames)
+        throws SQLException {
+        generator.writeStartObject();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            generator.writeName(fieldNames.get(i));
+            Object value = readValue(resultSet, i + 1);
+            switch (value) {
+                case null -> generator.writeNull();
+                case Boolean flag -> generator.writeBoolean(flag);
+                case Integer number -> generator.writeNumber(number);
+                case Long number -> generator.writeNumber(number);
+                default -> generator.writeString(String.valueOf(value));
+            }
         }
-        return csv.toString();
+        generator.writeEndObject();
     }
 
-    private void appendCsvRow(StringBuilder csv, List<?> values) {
-        for (int i = 0; i < values.size(); i++) {
-            if (i > 0) {
-                csv.append(',');
+    private List<String> jsonFieldNames(ResultSetMetaData metaData) throws SQLException {
+        List<String> fieldNames = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            fieldNames.add(toJsonFieldName(metaData.getColumnLabel(i)));
+        }
+        return fieldNames;
+    }
+
+    private String toJsonFieldName(String column) {
+        String name = column.startsWith("is_") ? column.substring(3) : column;
+        StringBuilder fieldName = new StringBuilder(name.length());
+        boolean upperNext = false;
+        for (char symbol : name.toCharArray()) {
+            if (symbol == '_') {
+                upperNext = true;
+                continue;
             }
-            csv.append(escapeCsvValue(values.get(i)));
+            fieldName.append(upperNext ? Character.toUpperCase(symbol) : symbol);
+            upperNext = false;
+        }
+        return fieldName.toString();
+    }
+
+    private Object readValue(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant();
+        }
+        return value;
+    }
+
+    private void appendCsvRow(Writer writer, Object[] values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escapeCsvValue(values[i]));
+            }
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        csv.append('\n');
     }
 
     private String escapeCsvValue(Object value) {
@@ -275,7 +310,9 @@ public class AdminExportService {
         return "\"" + text.replace("\"", "\"\"") + "\"";
     }
 
-    private List<?> csvRow(Object... values) {
-        return Arrays.asList(values);
+    @FunctionalInterface
+    private interface RowStreamer {
+
+        void stream(ResultSet resultSet) throws SQLException;
     }
 }
@@ -0,0 +1,53 @@
+package ru.muslim.tajwid.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AutomationProgress {
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong announcementsProcessed = new AtomicLong();
+    private final AtomicLong announcementsRemaining = new AtomicLong();
+    private final AtomicLong awardsProcessed = new AtomicLong();
+    private final AtomicLong awardsRemaining = new AtomicLong();
+
+    public AutomationProgress(MeterRegistry meterRegistry) {
+        Gauge.builder("tajwid.automation.lag", lagMillis, value -> value.get() / 1000.0)
+            .description("Age of the oldest referral announcement still waiting to be sent")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        registerJobGauges(meterRegistry, "announcements", announcementsProcessed, announcementsRemaining);
+        registerJobGauges(meterRegistry, "awards", awardsProcessed, awardsRemaining);
+    }
+
+    public void recordAnnouncements(int processed, long remaining, Instant oldestDueAt, Instant now) {
+        announcementsProcessed.set(processed);
+        announcementsRemaining.set(remaining);
+        long lag = oldestDueAt == null ? 0 : Duration.between(oldestDueAt, now).toMillis();
+        lagMillis.set(Math.max(0, lag));
+    }
+
+    public void recordAwards(int processed, long remaining) {
+        awardsProcessed.set(processed);
+        awardsRemaining.set(remaining);
+    }
+
+    private static void registerJobGauges(MeterRegistry meterRegistry,
+                                          String job,
+                                          AtomicLong processed,
+                                          AtomicLong remaining) {
+        Gauge.builder("tajwid.automation.processed", processed, AtomicLong::get)
+            .description("Items handled by the last automation tick")
+            .tag("job", job)
+            .register(meterRegistry);
+        Gauge.builder("tajwid.automation.remaining", remaining, AtomicLong::get)
+            .description("Items left for the next automation tick")
+            .tag("job", job)
+            .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.muslim.tajwid.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -12,22 +14,25 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.muslim.tajwid.config.TajwidBotProperties;
 import ru.muslim.tajwid.domain.FlowContextEntity;
 import ru.muslim.tajwid.domain.FlowStep;
 import ru.muslim.tajwid.domain.FlowType;
+import ru.muslim.tajwid.domain.MessagePriority;
 import ru.muslim.tajwid.domain.ReadingLevel;
 import ru.muslim.tajwid.domain.RegistrationNotificationAdminEntity;
 import ru.muslim.tajwid.domain.ReferralStatus;
 import ru.muslim.tajwid.domain.UserEntity;
-import ru.muslim.tajwid.domain.UserTagEntity;
 import ru.muslim.tajwid.repository.FlowContextRepository;
+import ru.muslim.tajwid.repository.ReferralAnnouncementDue;
 import ru.muslim.tajwid.repository.RegistrationNotificationAdminRepository;
 import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
 import ru.muslim.tajwid.repository.UserRepository;
@@ -78,6 +83,10 @@ public class BotFlowService {
 
     private static final EnumSet<ReferralStatus> BLOCKING_REFERRAL_STATUSES =
         EnumSet.of(ReferralStatus.PENDING, ReferralStatus.COUNTED);
+    private static final EnumSet<FlowStep> REFERRAL_ANNOUNCEMENT_WAITING_STEPS = EnumSet.of(
+        FlowStep.FLOW1_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT,
+        FlowStep.FLOW4_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT
+    );
     private static final int REFERRAL_LINK_MAX_LENGTH = 512;
 
     private final FlowContextRepository flowContextRepository;
@@ -86,89 +95,169 @@ public class BotFlowService {
     private final RegistrationNotificationAdminRepository registrationNotificationAdminRepository;
     private final ReferralLinkUsageRepository referralLinkUsageRepository;
     private final ChannelSubscriptionService channelSubscriptionService;
+    private final SubscriptionResolver subscriptionResolver;
+    private final AutomationProgress automationProgress;
     private final ReferralBonusService referralBonusService;
+    private final OutboundMessageService outboundMessageService;
     private final TajwidBotProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional
     public BotUpdateResult handleUpdate(BotUpdateRequest request) {
-        FlowContextEntity context = flowContextRepository.findByUserId(request.userId())
+        String text = normalize(request.text());
+        String callback = normalize(request.callbackData());
+        SubscriptionSnapshot subscriptions = subscriptionResolver.resolve(
+            request.userId(),
+            requiresSchoolSubscriptionCheck(text, callback),
+            requiresCourseSubscriptionCheck(text, callback)
+        );
+
+        return inTransaction(resolveHandlerName(request, text, callback),
+            () -> applyUpdate(request, text, callback, subscriptions));
+    }
+
+    public BotUpdateResult handleCourseChannelSubscriptionConfirmed(long userId) {
+        transactionTemplate.executeWithoutResult(status -> userRepository.updateReferralCheckBackoff(userId, 0, null));
+
+        SubscriptionCheckResult result = channelSubscriptionService.checkCourseChannelSubscription(userId);
+        if (result != SubscriptionCheckResult.SUBSCRIBED) {
+            log.info("Skip course membership confirmation for user {}: {}", userId, result);
+            return new BotUpdateResult(new ArrayList<>());
+        }
+
+        return inTransaction("course_membership", () -> {
+            List<BotMessageResponse> responses = new ArrayList<>();
+            FlowContextEntity context = flowContextRepository.findByNaturalId(userId).orElse(null);
+
+            confirmCourseSubscriptionAndProcessReferral(
+                userId,
+                context,
+                responses,
+                "course_channel_membership_update"
+            );
+
+            return completeUpdate(responses, userId, MessagePriority.AUTOMATION);
+        });
+    }
+
+    public BotUpdateResult processScheduledAutomations() {
+        Instant now = Instant.now();
+        List<BotMessageResponse> responses = new ArrayList<>();
+
+        processDueReferralAnnouncements(now, responses);
+        processPendingReferralAwards(now, responses);
+
+        return new BotUpdateResult(responses);
+    }
+
+    public BotUpdateResult processPendingReferralAwards() {
+        List<BotMessageResponse> responses = new ArrayList<>();
+        processPendingReferralAwards(Instant.now(), responses);
+        return new BotUpdateResult(responses);
+    }
+
+    public BotUpdateResult processDueReferralAnnouncements() {
+        List<BotMessageResponse> responses = new ArrayList<>();
+        processDueReferralAnnouncements(Instant.now(), responses);
+        return new BotUpdateResult(responses);
+    }
+
+    public List<ReferralAnnouncementDue> findUpcomingReferralAnnouncements(Instant until) {
+        return flowContextRepository.findReferralAnnouncementsDueBefore(until, REFERRAL_ANNOUNCEMENT_WAITING_STEPS);
+    }
+
+    private BotUpdateResult applyUpdate(BotUpdateRequest request,
+                                        String text,
+                                        String callback,
+                                        SubscriptionSnapshot subscriptions) {
+        FlowContextEntity context = flowContextRepository.findByNaturalId(request.userId())
             .orElseGet(() -> createDefaultContext(request.userId(), request.firstName()));
         context.setTelegramFirstName(request.firstName());
         context.setTelegramUsername(normalizeUsername(request.username()));
 
         List<BotMessageResponse> responses = new ArrayList<>();
 
-        String text = normalize(request.text());
-        String callback = normalize(request.callbackData());
-
         if (text != null && text.startsWith("/start")) {
-            handleStartCommand(request, context, text, responses);
-            flowContextRepository.save(context);
-            return new BotUpdateResult(responses);
+            handleStartCommand(request, context, text, responses, subscriptions);
+            saveIfNew(context);
+            return completeUpdate(responses, request.userId(), MessagePriority.INTERACTIVE);
         }
 
         if (callback != null) {
-            handleCallback(request, context, callback, responses);
-            flowContextRepository.save(context);
-            return new BotUpdateResult(responses);
+            handleCallback(request, context, callback, responses, subscriptions);
+            saveIfNew(context);
+            return completeUpdate(responses, request.userId(), MessagePriority.INTERACTIVE);
         }
 
         if (request.contact() != null) {
             handleContact(request, context, request.contact(), responses);
-            flowContextRepository.save(context);
-            return new BotUpdateResult(responses);
+            saveIfNew(context);
+            return completeUpdate(responses, request.userId(), MessagePriority.INTERACTIVE);
         }
 
         if (text != null) {
             handleText(request, context, text, responses);
-            flowContextRepository.save(context);
-            return new BotUpdateResult(responses);
+            saveIfNew(context);
+            return completeUpdate(responses, request.userId(), MessagePriority.INTERACTIVE);
         }
 
         addMessage(responses, request.userId(), "Нажмите /start для начала регистрации.");
-        flowContextRepository.save(context);
-        return new BotUpdateResult(responses);
+        saveIfNew(context);
+        return completeUpdate(responses, request.userId(), MessagePriority.INTERACTIVE);
     }
 
-    @Transactional
-    public BotUpdateResult handleCourseChannelSubscriptionConfirmed(long userId) {
-        List<BotMessageResponse> responses = new ArrayList<>();
-
-        SubscriptionCheckResult result = channelSubscriptionService.checkCourseChannelSubscription(userId);
-        if (result != SubscriptionCheckResult.SUBSCRIBED) {
-            log.info("Skip course membership confirmation for user {}: {}", userId, result);
-            return new BotUpdateResult(responses);
+    private boolean requiresSchoolSubscriptionCheck(String text, String callback) {
+        if (text != null && text.startsWith("/start")) {
+            return text.trim().split("\\s+").length == 1;
         }
-
-        FlowContextEntity context = flowContextRepository.findByUserId(userId).orElse(null);
-
-        confirmCourseSubscriptionAndProcessReferral(
-            userId,
-            context,
-            responses,
-            "course_channel_membership_update"
-        );
-
-        return new BotUpdateResult(responses);
+        return FLOW1_SCHOOL_RECHECK.equals(callback) || FLOW3_SCHOOL_RECHECK.equals(callback);
     }
 
-    @Transactional
-    public BotUpdateResult processScheduledAutomations() {
-        List<BotMessageResponse> responses = new ArrayList<>();
+    private boolean requiresCourseSubscriptionCheck(String text, String callback) {
+        if (callback == null || (text != null && text.startsWith("/start"))) {
+            return false;
+        }
+        if (FLOW1_COURSE_RECHECK.equals(callback) || FLOW4_COURSE_CLICK_CONFIRMED.equals(callback)) {
+            return true;
+        }
+        return (callback.startsWith(FLOW1_LEVEL_PREFIX) || callback.startsWith(FLOW4_LEVEL_PREFIX))
+            && resolveFlow1ToFlow2Delay().isZero();
+    }
 
-        processDueReferralAnnouncements(Instant.now(), responses);
-        processPendingReferralAwards(responses);
+    private String resolveHandlerName(BotUpdateRequest request, String text, String callback) {
+        if (text != null && text.startsWith("/start")) {
+            return "start";
+        }
+        if (callback != null) {
+            return "callback";
+        }
+        if (request.contact() != null) {
+            return "contact";
+        }
+        return text != null ? "text" : "other";
+    }
 
-        return new BotUpdateResult(responses);
+    private BotUpdateResult inTransaction(String handler, Supplier<BotUpdateResult> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } finally {
+            sample.stop(Timer.builder("tajwid.flow.transaction")
+                .description("Time a flow handler holds a database transaction and connection")
+                .tag("handler", handler)
+                .register(meterRegistry));
+        }
     }
 
     private void handleStartCommand(BotUpdateRequest request,
                                     FlowContextEntity context,
                                     String commandText,
-                                    List<BotMessageResponse> responses) {
+                                    List<BotMessageResponse> responses,
+                                    SubscriptionSnapshot subscriptions) {
         String[] parts = commandText.trim().split("\\s+");
         if (parts.length == 1) {
-            startNormalFlow(request, context, responses);
+            startNormalFlow(request, context, responses, subscriptions);
             return;
         }
 
@@ -187,11 +276,12 @@ public class BotFlowService {
 
     private void startNormalFlow(BotUpdateRequest request,
                                  FlowContextEntity context,
-                                 List<BotMessageResponse> responses) {
+                                 List<BotMessageResponse> responses,
+                                 SubscriptionSnapshot subscriptions) {
         resetContext(context, request.userId(), request.firstName(), FlowType.NORMAL);
 
         SubscriptionCheckResult subscription =
-            channelSubscriptionService.checkSchoolChannelSubscription(request.userId());
+            subscriptions.checkSchoolChannelSubscription(request.userId());
 
         if (subscription == SubscriptionCheckResult.SUBSCRIBED) {
             addMessage(responses, request.userId(),
@@ -252,35 +342,36 @@ public class BotFlowService {
     private void handleCallback(BotUpdateRequest request,
                                 FlowContextEntity context,
                                 String callback,
-                                List<BotMessageResponse> responses) {
+                                List<BotMessageResponse> responses,
+                                SubscriptionSnapshot subscriptions) {
         if (callback.startsWith(FLOW1_LEVEL_PREFIX)) {
-            handleFlow1ReadingLevel(request, context, callback, responses);
+            handleFlow1ReadingLevel(request, context, callback, responses, subscriptions);
             return;
         }
 
         if (callback.startsWith(FLOW4_LEVEL_PREFIX)) {
-            handleFlow4ReadingLevel(request, context, callback, responses);
+            handleFlow4ReadingLevel(request, context, callback, responses, subscriptions);
             return;
         }
 
         switch (callback) {
             case FLOW1_INTRO_CONTINUE -> onFlow1IntroContinue(request, context, responses);
-            case FLOW1_SCHOOL_RECHECK -> onFlow1SchoolRecheck(request, context, responses);
+            case FLOW1_SCHOOL_RECHECK -> onFlow1SchoolRecheck(request, context, responses, subscriptions);
             case FLOW1_CONSENT_CONTINUE -> onFlow1ConsentContinue(request, context, responses);
-            case FLOW1_COURSE_RECHECK -> onFlow1CourseRecheck(request, context, responses);
+            case FLOW1_COURSE_RECHECK -> onFlow1CourseRecheck(request, context, responses, subscriptions);
             case FLOW1_HAS_CHILDREN_YES -> onFlow1HasChildren(request, context, responses, true);
             case FLOW1_HAS_CHILDREN_NO -> onFlow1HasChildren(request, context, responses, false);
             case FLOW1_CHILDREN_STUDY_YES -> onFlow1ChildrenStudy(request, context, responses, true);
             case FLOW1_CHILDREN_STUDY_NO -> onFlow1ChildrenStudy(request, context, responses, false);
             case FLOW2_TERMS -> onFlow2Terms(request, context, responses);
             case FLOW2_SHOW_LINK -> onFlow2ShowLink(request, context, responses);
-            case FLOW3_SCHOOL_RECHECK -> onFlow3SchoolRecheck(request, context, responses);
+            case FLOW3_SCHOOL_RECHECK -> onFlow3SchoolRecheck(request, context, responses, subscriptions);
             case FLOW3_CONSENT_CONTINUE -> onFlow3ConsentContinue(request, context, responses);
             case FLOW4_HAS_CHILDREN_YES -> onFlow4HasChildren(request, context, responses, true);
             case FLOW4_HAS_CHILDREN_NO -> onFlow4HasChildren(request, context, responses, false);
             case FLOW4_CHILDREN_STUDY_YES -> onFlow4ChildrenStudy(request, context, responses, true);
             case FLOW4_CHILDREN_STUDY_NO -> onFlow4ChildrenStudy(request, context, responses, false);
-            case FLOW4_COURSE_CLICK_CONFIRMED -> onFlow4CourseClickConfirmed(request, context, responses);
+            case FLOW4_COURSE_CLICK_CONFIRMED -> onFlow4CourseClickConfirmed(request, context, responses, subscriptions);
             default -> addMessage(responses, request.userId(),
                 "Кнопка неактуальна. Нажмите /start для начала сценария заново.");
         }
@@ -299,11 +390,12 @@ public class BotFlowService {
 
     private void onFlow1SchoolRecheck(BotUpdateRequest request,
                                       FlowContextEntity context,
-                                      List<BotMessageResponse> responses) {
+                                      List<BotMessageResponse> responses,
+                                      SubscriptionSnapshot subscriptions) {
         addTempTag(context, TAG_CLICKED_SUBSCRIBED_BUTTON);
 
         SubscriptionCheckResult result =
-            channelSubscriptionService.checkSchoolChannelSubscription(request.userId());
+            subscriptions.checkSchoolChannelSubscription(request.userId());
 
         if (result == SubscriptionCheckResult.SUBSCRIBED) {
             addTempTag(context, TAG_SUBSCRIBED_VIA_BOT);
@@ -345,16 +437,17 @@ public class BotFlowService {
 
     private void onFlow1CourseRecheck(BotUpdateRequest request,
                                       FlowContextEntity context,
-                                      List<BotMessageResponse> responses) {
+                                      List<BotMessageResponse> responses,
+                                      SubscriptionSnapshot subscriptions) {
         if (context.getCurrentStep() != FlowStep.FLOW1_WAIT_COURSE_SUBSCRIPTION_RECHECK) {
             return;
         }
 
         SubscriptionCheckResult result =
-            channelSubscriptionService.checkCourseChannelSubscription(request.userId());
+            subscriptions.checkCourseChannelSubscription(request.userId());
 
         if (result == SubscriptionCheckResult.SUBSCRIBED) {
-            userRepository.findByUserId(request.userId()).ifPresent(user -> {
+            userRepository.findByNaturalId(request.userId()).ifPresent(user -> {
                 user.setCourseChannelSubscribed(true);
                 userRepository.save(user);
             });
@@ -400,7 +493,7 @@ public class BotFlowService {
     private void onFlow2ShowLink(BotUpdateRequest request,
                                  FlowContextEntity context,
                                  List<BotMessageResponse> responses) {
-        Optional<UserEntity> maybeUser = userRepository.findByUserId(request.userId());
+        Optional<UserEntity> maybeUser = userRepository.findByNaturalId(request.userId());
         if (maybeUser.isEmpty()) {
             addMessage(responses, request.userId(),
                 "Сначала завершите регистрацию. Нажмите /start.");
@@ -439,7 +532,8 @@ public class BotFlowService {
 
     private void onFlow3SchoolRecheck(BotUpdateRequest request,
                                       FlowContextEntity context,
-                                      List<BotMessageResponse> responses) {
+                                      List<BotMessageResponse> responses,
+                                      SubscriptionSnapshot subscriptions) {
         if (context.getFlowType() != FlowType.REFERRAL || context.getReferrerUserId() <= 0) {
             addMessage(responses, request.userId(),
                 "Технический контекст не найден. Запустите сценарий по реферальной ссылке снова.");
@@ -449,7 +543,7 @@ public class BotFlowService {
         addTempTag(context, TAG_CLICKED_SUBSCRIBED_BUTTON);
 
         SubscriptionCheckResult result =
-            channelSubscriptionService.checkSchoolChannelSubscription(request.userId());
+            subscriptions.checkSchoolChannelSubscription(request.userId());
 
         if (result == SubscriptionCheckResult.SUBSCRIBED) {
             addTempTag(context, TAG_SUBSCRIBED_VIA_BOT);
@@ -490,13 +584,14 @@ public class BotFlowService {
 
     private void onFlow4CourseClickConfirmed(BotUpdateRequest request,
                                              FlowContextEntity context,
-                                             List<BotMessageResponse> responses) {
+                                             List<BotMessageResponse> responses,
+                                             SubscriptionSnapshot subscriptions) {
         if (context.getCurrentStep() != FlowStep.FLOW4_WAIT_COURSE_LINK_CONFIRM) {
             return;
         }
 
         SubscriptionCheckResult subscriptionResult =
-            channelSubscriptionService.checkCourseChannelSubscription(request.userId());
+            subscriptions.checkCourseChannelSubscription(request.userId());
 
         if (subscriptionResult == SubscriptionCheckResult.ERROR) {
             addMessage(responses, request.userId(),
@@ -597,7 +692,8 @@ public class BotFlowService {
     private void handleFlow1ReadingLevel(BotUpdateRequest request,
                                          FlowContextEntity context,
                                          String callback,
-                                         List<BotMessageResponse> responses) {
+                                         List<BotMessageResponse> responses,
+                                         SubscriptionSnapshot subscriptions) {
         if (context.getCurrentStep() != FlowStep.FLOW1_WAIT_READING_LEVEL) {
             addMessage(responses, request.userId(),
                 "Сначала завершите предыдущие шаги регистрации.");
@@ -615,20 +711,20 @@ public class BotFlowService {
         addTempTag(context, level.label());
         UserEntity user = upsertNormalUser(request.userId(), context);
         flushTempTagsToUser(request.userId(), context);
-        assignTag(request.userId(), level.label());
         enqueueAdminRegistrationNotifications(user, responses);
 
         addMessage(responses, request.userId(), registrationCompletedMessage(),
             urlButton("Канал по курсу", properties.getCourseChannelUrl()));
 
         scheduleReferralProgramAnnouncement(request.userId(), context, responses,
-            FlowStep.FLOW1_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT);
+            FlowStep.FLOW1_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT, subscriptions);
     }
 
     private void handleFlow4ReadingLevel(BotUpdateRequest request,
                                          FlowContextEntity context,
                                          String callback,
-                                         List<BotMessageResponse> responses) {
+                                         List<BotMessageResponse> responses,
+                                         SubscriptionSnapshot subscriptions) {
         if (context.getCurrentStep() != FlowStep.FLOW4_WAIT_READING_LEVEL) {
             addMessage(responses, request.userId(),
                 "Сначала завершите предыдущие шаги регистрации.");
@@ -646,21 +742,20 @@ public class BotFlowService {
         addTempTag(context, level.label());
         UserEntity user = upsertReferralUser(request.userId(), context);
         flushTempTagsToUser(request.userId(), context);
-        assignTag(request.userId(), level.label());
         enqueueAdminRegistrationNotifications(user, responses);
 
         addMessage(responses, request.userId(), registrationCompletedMessage(),
             urlButton("Канал по курсу", properties.getCourseChannelUrl()));
 
         scheduleReferralProgramAnnouncement(request.userId(), context, responses,
-            FlowStep.FLOW4_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT);
+            FlowStep.FLOW4_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT, subscriptions);
     }
 
     private void confirmCourseSubscriptionAndProcessReferral(long userId,
                                                              FlowContextEntity context,
                                                              List<BotMessageResponse> responses,
                                                              String triggerSource) {
-        Optional<UserEntity> maybeUser = userRepository.findByUserId(userId);
+        Optional<UserEntity> maybeUser = userRepository.findByNaturalId(userId);
         if (maybeUser.isEmpty()) {
             log.warn("Course subscription confirmation ignored: user {} not found", userId);
             return;
@@ -981,37 +1076,93 @@ public class BotFlowService {
     private void scheduleReferralProgramAnnouncement(long userId,
                                                      FlowContextEntity context,
                                                      List<BotMessageResponse> responses,
-                                                     FlowStep waitingStep) {
-        Duration delay = properties.getFlow1ToFlow2Delay();
-        if (delay == null || delay.isNegative()) {
-            delay = Duration.ZERO;
-        }
+                                                     FlowStep waitingStep,
+                                                     SubscriptionSnapshot subscriptions) {
+        Duration delay = resolveFlow1ToFlow2Delay();
 
         if (delay.isZero()) {
             if (confirmCourseSubscriptionIfPresent(
                 userId,
                 responses,
-                "course_channel_check_before_flow2_zero_delay")) {
+                "course_channel_check_before_flow2_zero_delay",
+                subscriptions)) {
                 context.setReferralAnnouncementDueAt(null);
                 context.setReferralAnnouncementSent(true);
                 startFlow2(userId, context, responses);
                 return;
             }
             context.setCurrentStep(waitingStep);
-            context.setReferralAnnouncementDueAt(Instant.now().plus(resolveAutomationRetryDelay()));
-            context.setReferralAnnouncementSent(false);
+            scheduleReferralAnnouncementAt(context, Instant.now().plus(resolveAutomationRetryDelay()));
             return;
         }
 
         context.setCurrentStep(waitingStep);
-        context.setReferralAnnouncementDueAt(Instant.now().plus(delay));
+        scheduleReferralAnnouncementAt(context, Instant.now().plus(delay));
+    }
+
+    private void scheduleReferralAnnouncementAt(FlowContextEntity context, Instant dueAt) {
+        context.setReferralAnnouncementDueAt(dueAt);
         context.setReferralAnnouncementSent(false);
+        eventPublisher.publishEvent(new ReferralAnnouncementScheduledEvent(context.getUserId(), dueAt));
     }
 
     private void processDueReferralAnnouncements(Instant now, List<BotMessageResponse> responses) {
-        List<FlowContextEntity> dueContexts =
-            flowContextRepository.findByReferralAnnouncementSentFalseAndReferralAnnouncementDueAtLessThanEqual(now);
-        for (FlowContextEntity context : dueContexts) {
+        int chunkSize = resolveAutomationChunkSize();
+        int maxChunks = resolveAutomationMaxChunksPerTick();
+        int processed = 0;
+
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<FlowContextEntity> dueContexts = claimDueReferralAnnouncements(now, chunkSize);
+            if (dueContexts.isEmpty()) {
+                break;
+            }
+
+            List<Long> userIds = dueContexts.stream().map(FlowContextEntity::getUserId).toList();
+            SubscriptionSnapshot subscriptions = subscriptionResolver.resolveCourse(dueContexts.stream()
+                .filter(context -> isWaitingForReferralProgramAnnouncement(context.getCurrentStep()))
+                .map(FlowContextEntity::getUserId)
+                .toList());
+            BotUpdateResult result = inTransaction("automation",
+                () -> processReferralAnnouncementChunk(userIds, now, subscriptions));
+            responses.addAll(result.messages());
+            processed += dueContexts.size();
+
+            if (dueContexts.size() < chunkSize) {
+                break;
+            }
+        }
+
+        automationProgress.recordAnnouncements(
+            processed,
+            flowContextRepository.countDueReferralAnnouncements(now, REFERRAL_ANNOUNCEMENT_WAITING_STEPS),
+            flowContextRepository.findOldestReferralAnnouncementDueAt(REFERRAL_ANNOUNCEMENT_WAITING_STEPS),
+            Instant.now()
+        );
+    }
+
+    private List<FlowContextEntity> claimDueReferralAnnouncements(Instant now, int limit) {
+        return transactionTemplate.execute(status -> {
+            List<Long> userIds = flowContextRepository.lockDueReferralAnnouncementUserIds(now, limit);
+            if (userIds.isEmpty()) {
+                return List.of();
+            }
+            flowContextRepository.updateAutomationClaimedUntil(userIds, now.plus(resolveAutomationClaimLease()));
+            return flowContextRepository.findAllByUserIdIn(userIds);
+        });
+    }
+
+    private BotUpdateResult processReferralAnnouncementChunk(List<Long> userIds,
+                                                             Instant now,
+                                                             SubscriptionSnapshot subscriptions) {
+        List<BotMessageResponse> responses = new ArrayList<>();
+        List<FlowContextEntity> contexts = flowContextRepository.findAllByUserIdIn(userIds);
+        for (FlowContextEntity context : contexts) {
+            if (context.isReferralAnnouncementSent()
+                || context.getReferralAnnouncementDueAt() == null
+                || context.getReferralAnnouncementDueAt().isAfter(now)) {
+                continue;
+            }
+
             if (!isWaitingForReferralProgramAnnouncement(context.getCurrentStep())) {
                 context.setReferralAnnouncementDueAt(null);
                 context.setReferralAnnouncementSent(true);
@@ -1022,9 +1173,9 @@ public class BotFlowService {
             if (!confirmCourseSubscriptionIfPresent(
                 context.getUserId(),
                 responses,
-                "course_channel_check_before_flow2_scheduled")) {
-                context.setReferralAnnouncementDueAt(now.plus(resolveAutomationRetryDelay()));
-                context.setReferralAnnouncementSent(false);
+                "course_channel_check_before_flow2_scheduled",
+                subscriptions)) {
+                scheduleReferralAnnouncementAt(context, now.plus(resolveAutomationRetryDelay()));
                 flowContextRepository.save(context);
                 continue;
             }
@@ -1034,12 +1185,16 @@ public class BotFlowService {
             context.setReferralAnnouncementSent(true);
             flowContextRepository.save(context);
         }
+
+        flowContextRepository.updateAutomationClaimedUntil(userIds, null);
+        return completeUpdate(responses, null, MessagePriority.AUTOMATION);
     }
 
     private boolean confirmCourseSubscriptionIfPresent(long userId,
                                                        List<BotMessageResponse> responses,
-                                                       String triggerSource) {
-        SubscriptionCheckResult result = channelSubscriptionService.checkCourseChannelSubscription(userId);
+                                                       String triggerSource,
+                                                       SubscriptionSnapshot subscriptions) {
+        SubscriptionCheckResult result = subscriptions.checkCourseChannelSubscription(userId);
         if (result != SubscriptionCheckResult.SUBSCRIBED) {
             return false;
         }
@@ -1047,6 +1202,36 @@ public class BotFlowService {
         return true;
     }
 
+    private Duration resolveFlow1ToFlow2Delay() {
+        Duration delay = properties.getFlow1ToFlow2Delay();
+        if (delay == null || delay.isNegative()) {
+            return Duration.ZERO;
+        }
+        return delay;
+    }
+
+    private int resolveAutomationChunkSize() {
+        return Math.max(1, properties.getAutomation().getChunkSize());
+    }
+
+    private int resolveAutomationMaxChunksPerTick() {
+        return Math.max(1, properties.getAutomation().getMaxChunksPerTick());
+    }
+
+    private Duration resolveAutomationClaimLease() {
+        Duration lease = properties.getAutomation().getClaimLease();
+        if (lease == null || lease.isNegative() || lease.isZero()) {
+            return Duration.ofMinutes(2);
+        }
+        return lease;
+    }
+
+    private Duration resolveReferralRecheckBackoff(int attempts) {
+        TajwidBotProperties.AutomationProperties automation = properties.getAutomation();
+        return ExponentialBackoff.delay(attempts,
+            automation.getReferralRecheckInitialBackoff(), automation.getReferralRecheckMaxBackoff());
+    }
+
     private Duration resolveAutomationRetryDelay() {
         Duration retryDelay = properties.getAutomationTickDelay();
         if (retryDelay == null || retryDelay.isNegative() || retryDelay.isZero()) {
@@ -1056,36 +1241,83 @@ public class BotFlowService {
     }
 
     private boolean isWaitingForReferralProgramAnnouncement(FlowStep step) {
-        return step == FlowStep.FLOW1_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT
-            || step == FlowStep.FLOW4_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT;
+        return step != null && REFERRAL_ANNOUNCEMENT_WAITING_STEPS.contains(step);
     }
 
-    private void processPendingReferralAwards(List<BotMessageResponse> responses) {
-        List<UserEntity> pendingInvitees =
-            userRepository.findAllByReferralStatusAndRegistrationCompletedTrue(ReferralStatus.PENDING);
+    private void processPendingReferralAwards(Instant now, List<BotMessageResponse> responses) {
+        int chunkSize = resolveAutomationChunkSize();
+        int maxChunks = resolveAutomationMaxChunksPerTick();
+        int processed = 0;
+
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<UserEntity> candidates = claimPendingReferralAwards(now, chunkSize);
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            List<Long> userIds = candidates.stream().map(UserEntity::getUserId).toList();
+            SubscriptionSnapshot subscriptions = subscriptionResolver.resolveCourse(candidates.stream()
+                .filter(candidate -> !candidate.isCourseChannelSubscribed())
+                .map(UserEntity::getUserId)
+                .toList());
+            BotUpdateResult result = inTransaction("automation",
+                () -> processReferralAwardChunk(userIds, now, subscriptions));
+            responses.addAll(result.messages());
+            processed += candidates.size();
+
+            if (candidates.size() < chunkSize) {
+                break;
+            }
+        }
 
-        for (UserEntity invitee : pendingInvitees) {
-            if (invitee.getReferrerUserId() <= 0) {
+        automationProgress.recordAwards(processed, userRepository.countPendingReferralAwards(now));
+    }
+
+    private List<UserEntity> claimPendingReferralAwards(Instant now, int limit) {
+        return transactionTemplate.execute(status -> {
+            List<Long> userIds = userRepository.lockPendingReferralAwardUserIds(now, limit);
+            if (userIds.isEmpty()) {
+                return List.of();
+            }
+            userRepository.updateAutomationClaimedUntil(userIds, now.plus(resolveAutomationClaimLease()));
+            return userRepository.findAllByUserIdIn(userIds);
+        });
+    }
+
+    private BotUpdateResult processReferralAwardChunk(List<Long> userIds,
+                                                      Instant now,
+                                                      SubscriptionSnapshot subscriptions) {
+        List<BotMessageResponse> responses = new ArrayList<>();
+        for (Long userId : userIds) {
+            UserEntity invitee = userRepository.findByNaturalId(userId).orElse(null);
+            if (invitee == null
+                || invitee.getReferralStatus() != ReferralStatus.PENDING
+                || invitee.getReferrerUserId() <= 0) {
                 continue;
             }
 
             boolean subscribed = invitee.isCourseChannelSubscribed();
             if (!subscribed) {
-                SubscriptionCheckResult result =
-                    channelSubscriptionService.checkCourseChannelSubscription(invitee.getUserId());
+                SubscriptionCheckResult result = subscriptions.checkCourseChannelSubscription(userId);
                 if (result != SubscriptionCheckResult.SUBSCRIBED) {
+                    int attempts = invitee.getReferralCheckAttempts() + 1;
+                    userRepository.updateReferralCheckBackoff(userId, attempts,
+                        now.plus(resolveReferralRecheckBackoff(attempts)));
                     continue;
                 }
             }
 
-            FlowContextEntity context = flowContextRepository.findByUserId(invitee.getUserId()).orElse(null);
+            FlowContextEntity context = flowContextRepository.findByNaturalId(userId).orElse(null);
             confirmCourseSubscriptionAndProcessReferral(
-                invitee.getUserId(),
+                userId,
                 context,
                 responses,
                 "course_channel_periodic_recheck"
             );
         }
+
+        userRepository.updateAutomationClaimedUntil(userIds, null);
+        return completeUpdate(responses, null, MessagePriority.AUTOMATION);
     }
 
     private void enqueueAdminRegistrationNotifications(UserEntity user, List<BotMessageResponse> responses) {
@@ -1210,7 +1442,7 @@ public class BotFlowService {
             return "Нет";
         }
 
-        Optional<UserEntity> maybeReferrer = userRepository.findByUserId(referrerUserId);
+        Optional<UserEntity> maybeReferrer = userRepository.findByNaturalId(referrerUserId);
         if (maybeReferrer.isEmpty()) {
             return String.valueOf(referrerUserId);
         }
@@ -1272,39 +1504,23 @@ public class BotFlowService {
     }
 
     private UserEntity upsertNormalUser(long userId, FlowContextEntity context) {
-        UserEntity user = userRepository.findByUserId(userId).orElseGet(UserEntity::new);
-        if (user.getUserId() == null) {
-            user.setUserId(userId);
-        }
-
-        user.setTelegramFirstName(context.getTelegramFirstName());
-        user.setTelegramUsername(context.getTelegramUsername());
-        user.setUserName(context.getUserName());
-        user.setAge(context.getAge());
-        user.setHasChildren(context.getHasChildren());
-        user.setChildrenCount(context.getChildrenCount());
-        user.setChildrenAges(context.getChildrenAges());
-        user.setChildrenStudyQuran(context.getChildrenStudyQuran());
-        user.setPhone(context.getPhone());
-        user.setReadingLevel(context.getReadingLevel());
-        user.setConsentGiven(true);
-        user.setSchoolChannelSubscribed(true);
-        user.setCourseChannelSubscribed(false);
-        user.setRegistrationCompleted(true);
-        user.setRegistrationCompletedAt(Instant.now());
+        UserEntity user = registrationOf(userId, context);
         user.setReferrerUserId(0);
         user.setReferralStatus(ReferralStatus.NOT_APPLICABLE);
-        user.setReferralCountedAt(Instant.EPOCH);
-
-        return userRepository.save(user);
+        return upsertRegisteredUser(user);
     }
 
     private UserEntity upsertReferralUser(long userId, FlowContextEntity context) {
-        UserEntity user = userRepository.findByUserId(userId).orElseGet(UserEntity::new);
-        if (user.getUserId() == null) {
-            user.setUserId(userId);
-        }
+        UserEntity user = registrationOf(userId, context);
+        user.setReferrerUserId(context.getReferrerUserId());
+        user.setReferralStatus(ReferralStatus.PENDING);
+        return upsertRegisteredUser(user);
+    }
 
+    private UserEntity registrationOf(long userId, FlowContextEntity context) {
+        Instant now = Instant.now();
+        UserEntity user = new UserEntity();
+        user.setUserId(userId);
         user.setTelegramFirstName(context.getTelegramFirstName());
         user.setTelegramUsername(context.getTelegramUsername());
         user.setUserName(context.getUserName());
@@ -1319,12 +1535,14 @@ public class BotFlowService {
         user.setSchoolChannelSubscribed(true);
         user.setCourseChannelSubscribed(false);
         user.setRegistrationCompleted(true);
-        user.setRegistrationCompletedAt(Instant.now());
-        user.setReferrerUserId(context.getReferrerUserId());
-        user.setReferralStatus(ReferralStatus.PENDING);
+        user.setRegistrationCompletedAt(now);
         user.setReferralCountedAt(Instant.EPOCH);
+        user.setUpdatedAt(now);
+        return user;
+    }
 
-        return userRepository.save(user);
+    private UserEntity upsertRegisteredUser(UserEntity registration) {
+        return userRepository.refreshUpserted(userRepository.upsertRegistration(registration), registration);
     }
 
     private void addTempTag(FlowContextEntity context, String tag) {
@@ -1334,20 +1552,18 @@ public class BotFlowService {
     }
 
     private void flushTempTagsToUser(long userId, FlowContextEntity context) {
-        for (String tag : parseTags(context.getTempTags())) {
-            assignTag(userId, tag);
-        }
+        assignTags(userId, parseTags(context.getTempTags()));
     }
 
     private void assignTag(long userId, String tag) {
-        if (userTagRepository.existsByUserIdAndTag(userId, tag)) {
+        assignTags(userId, List.of(tag));
+    }
+
+    private void assignTags(long userId, Collection<String> tags) {
+        if (tags.isEmpty()) {
             return;
         }
-
-        UserTagEntity entity = new UserTagEntity();
-        entity.setUserId(userId);
-        entity.setTag(tag);
-        userTagRepository.save(entity);
+        userTagRepository.insertMissing(userId, tags, Instant.now());
     }
 
     private Set<String> parseTags(String rawTags) {
@@ -1482,6 +1698,12 @@ public class BotFlowService {
         context.setReferralAnnouncementSent(false);
     }
 
+    private void saveIfNew(FlowContextEntity context) {
+        if (context.getId() == null) {
+            flowContextRepository.save(context);
+        }
+    }
+
     private FlowContextEntity createDefaultContext(long userId, String firstName) {
         FlowContextEntity context = new FlowContextEntity();
         context.setUserId(userId);
@@ -1493,6 +1715,13 @@ public class BotFlowService {
         return context;
     }
 
+    private BotUpdateResult completeUpdate(List<BotMessageResponse> responses,
+                                           Long ownerUserId,
+                                           MessagePriority priority) {
+        outboundMessageService.enqueue(responses, ownerUserId, priority);
+        return new BotUpdateResult(responses);
+    }
+
     private void addMessage(List<BotMessageResponse> responses,
                             Long recipientUserId,
                             String text,
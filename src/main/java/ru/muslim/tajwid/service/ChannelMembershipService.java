@@ -0,0 +1,38 @@
+package ru.muslim.tajwid.service;
+
+import java.time.Instant;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.repository.ChannelMembershipRepository;
+
+@Service
+@RequiredArgsConstructor
+public class ChannelMembershipService {
+
+    private final ChannelMembershipRepository channelMembershipRepository;
+    private final TajwidBotProperties properties;
+
+    @Transactional(readOnly = true)
+    public Optional<String> findStatus(String chatId, long userId) {
+        if (!StringUtils.hasText(chatId)) {
+            return Optional.empty();
+        }
+        Instant negativeSince = Instant.now()
+            .minus(properties.getTelegram().getMembershipCache().getIndexNegativeTtl());
+        return channelMembershipRepository.findStatus(chatId.trim(), userId, negativeSince);
+    }
+
+    @Transactional
+    public boolean recordStatus(String chatId, long userId, String status, Instant observedAt) {
+        if (!StringUtils.hasText(chatId) || !StringUtils.hasText(status)) {
+            return false;
+        }
+
+        Instant eventAt = observedAt == null ? Instant.now() : observedAt;
+        return channelMembershipRepository.upsertIfNewer(chatId.trim(), userId, status, eventAt) > 0;
+    }
+}
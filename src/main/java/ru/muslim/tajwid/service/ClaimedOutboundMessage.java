@@ -0,0 +1,12 @@
+package ru.muslim.tajwid.service;
+
+import ru.muslim.tajwid.domain.MessagePriority;
+import ru.muslim.tajwid.web.dto.BotMessageResponse;
+
+public record ClaimedOutboundMessage(
+    long id,
+    int attempts,
+    MessagePriority priority,
+    BotMessageResponse message
+) {
+}
@@ -0,0 +1,27 @@
+package ru.muslim.tajwid.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+final class ExponentialBackoff {
+
+    private static final int MAX_EXPONENT = 30;
+    private static final int JITTER_DIVISOR = 5;
+
+    private ExponentialBackoff() {
+    }
+
+    static Duration delay(int attempts, Duration initial, Duration max) {
+        return delay(attempts, initial, max, ThreadLocalRandom.current());
+    }
+
+    static Duration delay(int attempts, Duration initial, Duration max, RandomGenerator random) {
+        long initialMillis = Math.max(1L, initial.toMillis());
+        long maxMillis = Math.max(initialMillis, max.toMillis());
+        int exponent = Math.max(0, Math.min(attempts - 1, MAX_EXPONENT));
+        long backoffMillis = initialMillis > (maxMillis >> exponent) ? maxMillis : initialMillis << exponent;
+        long jitterMillis = random.nextLong(backoffMillis / JITTER_DIVISOR + 1);
+        return Duration.ofMillis(Math.min(maxMillis, backoffMillis + jitterMillis));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.muslim.tajwid.service;
+
+record ExportColumn(String name, Kind kind) {
+
+    static ExportColumn plain(String name) {
+        return new ExportColumn(name, Kind.PLAIN);
+    }
+
+    static ExportColumn bool(String name) {
+        return new ExportColumn(name, Kind.BOOLEAN);
+    }
+
+    static ExportColumn instant(String name) {
+        return new ExportColumn(name, Kind.INSTANT);
+    }
+
+    String copyExpression() {
+        return switch (kind) {
+            case PLAIN -> name;
+            case BOOLEAN -> name + "::text as " + name;
+            case INSTANT -> "export_instant(" + name + ") as " + name;
+        };
+    }
+
+    enum Kind {
+        PLAIN,
+        BOOLEAN,
+        INSTANT
+    }
+}
@@ -0,0 +1,36 @@
+package ru.muslim.tajwid.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+public record ExportCursor(Instant updatedAt, long id) {
+
+    public static final ExportCursor START = new ExportCursor(Instant.EPOCH, 0);
+
+    public static ExportCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return START;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value.strip()), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid export cursor: " + value);
+            }
+            return new ExportCursor(
+                Instant.parse(decoded.substring(0, separator)),
+                Long.parseLong(decoded.substring(separator + 1))
+            );
+        } catch (DateTimeException ex) {
+            throw new IllegalArgumentException("Invalid export cursor: " + value, ex);
+        }
+    }
+
+    public String encode() {
+        String raw = updatedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
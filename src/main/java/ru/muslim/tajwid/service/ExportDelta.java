@@ -0,0 +1,4 @@
+package ru.muslim.tajwid.service;
+
+public record ExportDelta(ExportCursor since, ExportCursor until, boolean hasMore) {
+}
@@ -0,0 +1,61 @@
+package ru.muslim.tajwid.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import lombok.Getter;
+
+@Getter
+public class ExportJob {
+
+    private final String id;
+    private final ExportJobFormat format;
+    private final boolean gzip;
+    private final String dataVersion;
+    private final Instant createdAt;
+
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Instant supersededAt;
+    private volatile Path file;
+    private volatile long sizeBytes;
+    private volatile String error;
+
+    ExportJob(String id, ExportJobFormat format, boolean gzip, String dataVersion, Instant createdAt) {
+        this.id = id;
+        this.format = format;
+        this.gzip = gzip;
+        this.dataVersion = dataVersion;
+        this.createdAt = createdAt;
+    }
+
+    public String getFilename() {
+        return format.filename(gzip);
+    }
+
+    public String getContentType() {
+        return format.contentType(gzip);
+    }
+
+    void markRunning(Instant now) {
+        startedAt = now;
+        status = ExportJobStatus.RUNNING;
+    }
+
+    void markCompleted(Path file, long sizeBytes, Instant now) {
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        finishedAt = now;
+        status = ExportJobStatus.COMPLETED;
+    }
+
+    void markFailed(String error, Instant now) {
+        this.error = error;
+        finishedAt = now;
+        status = ExportJobStatus.FAILED;
+    }
+
+    void markSuperseded(Instant now) {
+        supersededAt = now;
+    }
+}
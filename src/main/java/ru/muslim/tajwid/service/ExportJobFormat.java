@@ -0,0 +1,37 @@
+package ru.muslim.tajwid.service;
+
+import java.util.List;
+
+public enum ExportJobFormat {
+    USERS_CSV("tajwid-users.csv", "text/csv", List.of(ExportTable.USERS)),
+    FLOW_CONTEXTS_CSV("tajwid-flow-contexts.csv", "text/csv", List.of(ExportTable.FLOW_CONTEXTS)),
+    USER_TAGS_CSV("tajwid-user-tags.csv", "text/csv", List.of(ExportTable.USER_TAGS)),
+    REFERRAL_LINK_USAGES_CSV(
+        "tajwid-referral-link-usage.csv",
+        "text/csv",
+        List.of(ExportTable.REFERRAL_LINK_USAGES)
+    ),
+    SNAPSHOT_NDJSON("tajwid-snapshot.ndjson", "application/x-ndjson", ExportTable.SNAPSHOT);
+
+    private final String filename;
+    private final String contentType;
+    private final List<ExportTable> tables;
+
+    ExportJobFormat(String filename, String contentType, List<ExportTable> tables) {
+        this.filename = filename;
+        this.contentType = contentType;
+        this.tables = tables;
+    }
+
+    public String filename(boolean gzip) {
+        return gzip ? filename + ".gz" : filename;
+    }
+
+    public String contentType(boolean gzip) {
+        return gzip ? "application/gzip" : contentType;
+    }
+
+    List<ExportTable> tables() {
+        return tables;
+    }
+}
@@ -0,0 +1,182 @@
+package ru.muslim.tajwid.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern SPOOL_FILE_NAME = Pattern.compile(
+        "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}(\\.part|-.+)"
+    );
+
+    private final AdminExportService exportService;
+    private final TajwidBotProperties.ExportJobsProperties jobsProperties;
+    private final Path spoolDirectory;
+    private final ExecutorService workers;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<JobKey, ExportJob> latestJobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(AdminExportService exportService, TajwidBotProperties properties) {
+        this.exportService = exportService;
+        this.jobsProperties = properties.getExport().getJobs();
+        this.spoolDirectory = resolveSpoolDirectory(jobsProperties.getSpoolDir());
+        this.workers = Executors.newFixedThreadPool(
+            Math.max(1, jobsProperties.getWorkers()),
+            Thread.ofPlatform().daemon().name("export-job-", 0).factory()
+        );
+        removeStaleSpoolFiles();
+    }
+
+    public synchronized ExportJob submit(ExportJobFormat format, boolean gzip) {
+        String dataVersion = exportService.dataVersion(format);
+        JobKey key = new JobKey(format, gzip);
+        ExportJob current = latestJobs.get(key);
+        if (current != null
+            && current.getStatus() != ExportJobStatus.FAILED
+            && current.getDataVersion().equals(dataVersion)) {
+            return current;
+        }
+
+        Instant now = Instant.now();
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), format, gzip, dataVersion, now);
+        jobs.put(job.getId(), job);
+        latestJobs.put(key, job);
+        if (current != null) {
+            current.markSuperseded(now);
+        }
+        workers.execute(() -> run(job));
+        return job;
+    }
+
+    public Optional<ExportJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @Scheduled(fixedDelayString = "${tajwid.export.jobs.cleanup-delay:PT10M}")
+    public void removeExpiredJobs() {
+        Instant expiredBefore = Instant.now().minus(jobsProperties.getRetention());
+        jobs.values().removeIf(job -> {
+            Instant retiredAt = job.getStatus() == ExportJobStatus.FAILED
+                ? job.getFinishedAt()
+                : job.getSupersededAt();
+            if (retiredAt == null || retiredAt.isAfter(expiredBefore)) {
+                return false;
+            }
+            deleteQuietly(job.getFile());
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void run(ExportJob job) {
+        job.markRunning(Instant.now());
+        Path partFile = spoolDirectory.resolve(job.getId() + ".part");
+        Path file = spoolDirectory.resolve(job.getId() + "-" + job.getFilename());
+        try {
+            try (OutputStream output = openSpoolFile(partFile, job.isGzip())) {
+                write(job.getFormat(), output);
+            }
+            Files.move(partFile, file, StandardCopyOption.ATOMIC_MOVE);
+            job.markCompleted(file, Files.size(file), Instant.now());
+            log.info("Export job {} ({}) completed: {} bytes", job.getId(), job.getFormat(), job.getSizeBytes());
+        } catch (IOException | RuntimeException ex) {
+            log.error("Export job {} ({}) failed", job.getId(), job.getFormat(), ex);
+            deleteQuietly(partFile);
+            job.markFailed(ex.getMessage(), Instant.now());
+        }
+    }
+
+    private void write(ExportJobFormat format, OutputStream output) {
+        switch (format) {
+            case USERS_CSV -> exportService.writeUsersCsv(output);
+            case FLOW_CONTEXTS_CSV -> exportService.writeFlowContextsCsv(output);
+            case USER_TAGS_CSV -> exportService.writeUserTagsCsv(output);
+            case REFERRAL_LINK_USAGES_CSV -> exportService.writeReferralLinkUsagesCsv(output);
+            case SNAPSHOT_NDJSON -> exportService.writeSnapshotNdjson(output);
+        }
+    }
+
+    private OutputStream openSpoolFile(Path file, boolean gzip) throws IOException {
+        OutputStream output = Files.newOutputStream(file);
+        if (gzip) {
+            return new GZIPOutputStream(output, SPOOL_BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(output, SPOOL_BUFFER_SIZE);
+    }
+
+    private void removeStaleSpoolFiles() {
+        Instant staleBefore = Instant.now().minus(jobsProperties.getRetention());
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            files.filter(ExportJobService::isSpoolFile)
+                .filter(file -> isModifiedBefore(file, staleBefore))
+                .forEach(this::deleteQuietly);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static boolean isSpoolFile(Path file) {
+        return Files.isRegularFile(file) && SPOOL_FILE_NAME.matcher(file.getFileName().toString()).matches();
+    }
+
+    private boolean isModifiedBefore(Path file, Instant instant) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(instant);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Failed to delete export spool file {}", file, ex);
+        }
+    }
+
+    private static Path resolveSpoolDirectory(String spoolDir) {
+        Path directory = spoolDir == null || spoolDir.isBlank()
+            ? Path.of(System.getProperty("java.io.tmpdir"), "tajwid-exports")
+            : Path.of(spoolDir);
+        try {
+            return Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record JobKey(ExportJobFormat format, boolean gzip) {
+    }
+}
@@ -0,0 +1,8 @@
+package ru.muslim.tajwid.service;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,152 @@
+package ru.muslim.tajwid.service;
+
+import static ru.muslim.tajwid.service.ExportColumn.bool;
+import static ru.muslim.tajwid.service.ExportColumn.instant;
+import static ru.muslim.tajwid.service.ExportColumn.plain;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+record ExportTable(String snapshotName,
+                   String table,
+                   String orderBy,
+                   List<String> versionColumns,
+                   List<ExportColumn> columns) {
+
+    static final ExportTable USERS = new ExportTable(
+        "users",
+        "users",
+        "user_id",
+        List.of("updated_at"),
+        List.of(
+            plain("user_id"),
+            plain("telegram_first_name"),
+            plain("telegram_username"),
+            plain("user_name"),
+            plain("age"),
+            bool("has_children"),
+            plain("children_count"),
+            plain("children_ages"),
+            bool("children_study_quran"),
+            plain("phone"),
+            plain("reading_level"),
+            bool("is_school_channel_subscribed"),
+            bool("is_course_channel_subscribed"),
+            bool("consent_given"),
+            bool("registration_completed"),
+            instant("registration_completed_at"),
+            plain("referrer_user_id"),
+            plain("referral_status"),
+            instant("referral_counted_at"),
+            plain("referral_points"),
+            plain("referral_link_cp"),
+            instant("created_at"),
+            instant("updated_at")
+        )
+    );
+
+    static final ExportTable FLOW_CONTEXTS = new ExportTable(
+        "flowContexts",
+        "flow_contexts",
+        "user_id",
+        List.of("updated_at"),
+        List.of(
+            plain("user_id"),
+            plain("telegram_first_name"),
+            plain("telegram_username"),
+            plain("current_step"),
+            plain("flow_type"),
+            plain("user_name"),
+            plain("age"),
+            bool("has_children"),
+            plain("children_count"),
+            plain("children_ages"),
+            bool("children_study_quran"),
+            plain("children_age_index"),
+            plain("phone"),
+            plain("reading_level"),
+            bool("consent_given"),
+            bool("school_channel_subscribed"),
+            plain("referrer_user_id"),
+            plain("referral_entry_source"),
+            instant("referral_entry_at"),
+            plain("temp_tags"),
+            instant("referral_announcement_due_at"),
+            bool("referral_announcement_sent"),
+            instant("created_at"),
+            instant("updated_at")
+        )
+    );
+
+    static final ExportTable USER_TAGS = new ExportTable(
+        "userTags",
+        "user_tags",
+        "user_id, created_at",
+        List.of("created_at"),
+        List.of(
+            plain("user_id"),
+            plain("tag"),
+            instant("created_at")
+        )
+    );
+
+    static final ExportTable REFERRAL_LINK_USAGES = new ExportTable(
+        "referralLinkUsages",
+        "referral_link_usage",
+        "triggered_at, created_at",
+        List.of("created_at", "counted_at"),
+        List.of(
+            plain("referral_event_id"),
+            plain("referral_link"),
+            plain("referrer_user_id"),
+            plain("invitee_user_id"),
+            plain("idempotency_key"),
+            bool("is_already_counted"),
+            instant("counted_at"),
+            plain("trigger_source"),
+            instant("triggered_at"),
+            instant("created_at")
+        )
+    );
+
+    static final List<ExportTable> SNAPSHOT = List.of(USERS, FLOW_CONTEXTS, USER_TAGS, REFERRAL_LINK_USAGES);
+
+    String selectSql() {
+        return "select " + columnList() + " from " + table + " order by " + orderBy;
+    }
+
+    String versionSql() {
+        return "select concat_ws('|', count(*), "
+            + versionColumns.stream().map(column -> "max(" + column + ")").collect(Collectors.joining(", "))
+            + ") from " + table;
+    }
+
+    String deltaSelectSql() {
+        return "select " + columnList() + " from " + table
+            + " where (updated_at, id) > (?, ?) and (updated_at, id) <= (?, ?)"
+            + " order by updated_at, id";
+    }
+
+    String deltaBoundarySql() {
+        return "select updated_at, id from " + table
+            + " where (updated_at, id) > (?, ?) and updated_at <= ?"
+            + " order by updated_at, id offset ? limit 2";
+    }
+
+    String deltaLastSql() {
+        return "select updated_at, id from " + table
+            + " where (updated_at, id) > (?, ?) and updated_at <= ?"
+            + " order by updated_at desc, id desc limit 1";
+    }
+
+    String copySql() {
+        return "copy (select " + columns.stream().map(ExportColumn::copyExpression).collect(Collectors.joining(", "))
+            + " from " + table
+            + " order by " + orderBy
+            + ") to stdout with (format csv, header)";
+    }
+
+    private String columnList() {
+        return columns.stream().map(ExportColumn::name).collect(Collectors.joining(", "));
+    }
+}
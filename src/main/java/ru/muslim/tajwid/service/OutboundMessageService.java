@@ -0,0 +1,170 @@
+package ru.muslim.tajwid.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.MessagePriority;
+import ru.muslim.tajwid.domain.OutboundMessageEntity;
+import ru.muslim.tajwid.domain.OutboundMessageStatus;
+import ru.muslim.tajwid.repository.OutboundMessageRepository;
+import ru.muslim.tajwid.web.dto.BotButtonResponse;
+import ru.muslim.tajwid.web.dto.BotMessageResponse;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+@Service
+@RequiredArgsConstructor
+public class OutboundMessageService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+    private static final TypeReference<List<BotButtonResponse>> BUTTONS_TYPE = new TypeReference<>() {
+    };
+
+    private final OutboundMessageRepository outboundMessageRepository;
+    private final ObjectMapper objectMapper;
+    private final TajwidBotProperties properties;
+
+    public boolean isEnabled() {
+        return properties.getTelegram().isEnabled() && properties.getTelegram().getOutbox().isEnabled();
+    }
+
+    @Transactional
+    public void enqueue(List<BotMessageResponse> messages, Long ownerUserId, MessagePriority priority) {
+        if (!isEnabled() || messages == null || messages.isEmpty()) {
+            return;
+        }
+
+        List<OutboundMessageEntity> entities = new ArrayList<>();
+        for (BotMessageResponse message : messages) {
+            if (message == null || message.recipientUserId() == null || !StringUtils.hasText(message.text())) {
+                continue;
+            }
+
+            boolean ownMessage = ownerUserId == null || ownerUserId.equals(message.recipientUserId());
+
+            OutboundMessageEntity entity = new OutboundMessageEntity();
+            entity.setRecipientUserId(message.recipientUserId());
+            entity.setText(message.text());
+            entity.setButtons(writeButtons(message.buttons()));
+            entity.setPriority(ownMessage ? priority : MessagePriority.BROADCAST);
+            entities.add(entity);
+        }
+
+        if (!entities.isEmpty()) {
+            outboundMessageRepository.saveAll(entities);
+        }
+    }
+
+    @Transactional
+    public List<ClaimedOutboundMessage> claimDue(int limit) {
+        Instant now = Instant.now();
+        List<Long> headIds = outboundMessageRepository.lockDueHeadIds(now, limit);
+        if (headIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = outboundMessageRepository.lockDueRunIds(headIds, now, limit);
+
+        Instant lockedUntil = now.plus(properties.getTelegram().getOutbox().getLease());
+        List<OutboundMessageEntity> claimed = new ArrayList<>(outboundMessageRepository.findAllById(ids));
+        claimed.sort(Comparator.comparing(OutboundMessageEntity::getId));
+
+        List<ClaimedOutboundMessage> result = new ArrayList<>(claimed.size());
+        for (OutboundMessageEntity entity : claimed) {
+            entity.setLockedUntil(lockedUntil);
+            result.add(new ClaimedOutboundMessage(
+                entity.getId(),
+                entity.getAttempts(),
+                entity.getPriority(),
+                toMessage(entity)
+            ));
+        }
+        return result;
+    }
+
+    @Transactional
+    public void markSent(long id) {
+        outboundMessageRepository.findById(id).ifPresent(entity -> {
+            entity.setStatus(OutboundMessageStatus.SENT);
+            entity.setAttempts(entity.getAttempts() + 1);
+            entity.setSentAt(Instant.now());
+            entity.setLockedUntil(null);
+            entity.setLastError(null);
+        });
+    }
+
+    @Transactional
+    public OutboundMessageStatus markFailed(long id, String error, boolean permanent) {
+        OutboundMessageEntity entity = outboundMessageRepository.findById(id).orElse(null);
+        if (entity == null) {
+            return OutboundMessageStatus.DEAD;
+        }
+
+        TajwidBotProperties.OutboxProperties outbox = properties.getTelegram().getOutbox();
+        int attempts = entity.getAttempts() + 1;
+        entity.setAttempts(attempts);
+        entity.setLastError(truncate(error));
+        entity.setLockedUntil(null);
+
+        if (permanent || attempts >= outbox.getMaxAttempts()) {
+            entity.setStatus(OutboundMessageStatus.DEAD);
+            return OutboundMessageStatus.DEAD;
+        }
+
+        entity.setNextAttemptAt(Instant.now().plus(
+            ExponentialBackoff.delay(attempts, outbox.getInitialBackoff(), outbox.getMaxBackoff())));
+        return OutboundMessageStatus.PENDING;
+    }
+
+    @Transactional
+    public void reschedule(long id, Duration delay, String reason) {
+        outboundMessageRepository.findById(id).ifPresent(entity -> {
+            entity.setNextAttemptAt(Instant.now().plus(delay));
+            entity.setLockedUntil(null);
+            entity.setLastError(truncate(reason));
+        });
+    }
+
+    @Transactional
+    public void release(long id) {
+        outboundMessageRepository.findById(id).ifPresent(entity -> entity.setLockedUntil(null));
+    }
+
+    @Transactional
+    public int purgeSent() {
+        Instant before = Instant.now().minus(properties.getTelegram().getOutbox().getSentRetention());
+        return outboundMessageRepository.deleteSentBefore(before);
+    }
+
+    private BotMessageResponse toMessage(OutboundMessageEntity entity) {
+        return new BotMessageResponse(entity.getRecipientUserId(), entity.getText(), readButtons(entity.getButtons()));
+    }
+
+    private String writeButtons(List<BotButtonResponse> buttons) {
+        if (buttons == null || buttons.isEmpty()) {
+            return null;
+        }
+        return objectMapper.writeValueAsString(buttons);
+    }
+
+    private List<BotButtonResponse> readButtons(String rawButtons) {
+        if (!StringUtils.hasText(rawButtons)) {
+            return List.of();
+        }
+        return objectMapper.readValue(rawButtons, BUTTONS_TYPE);
+    }
+
+    private String truncate(String value) {
+        if (value == null || value.length() <= MAX_ERROR_LENGTH) {
+            return value;
+        }
+        return value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,10 +1,9 @@
 package ru.muslim.tajwid.service;
 
-import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import ru.muslim.tajwid.domain.PhoneNumbers;
 import ru.muslim.tajwid.domain.UserEntity;
 import ru.muslim.tajwid.repository.UserRepository;
 import ru.muslim.tajwid.web.dto.PublicChildrenLookupRequest;
@@ -16,47 +15,37 @@ import ru.muslim.tajwid.web.dto.PublicChildrenStatsResponse;
 public class PublicChildrenService {
 
     private final UserRepository userRepository;
+    private final UserAttributeStore userAttributeStore;
 
     public PublicChildrenStatsResponse getStats() {
-        List<UserEntity> users = userRepository.findAll(Sort.by("userId"));
-        long totalUsers = users.size();
-        long usersWithChildren = users.stream()
-            .filter(this::resolveHasChildren)
-            .count();
-        long usersWithoutChildren = totalUsers - usersWithChildren;
-
-        long studyTrue = users.stream()
-            .filter(this::resolveHasChildren)
-            .filter(user -> Boolean.TRUE.equals(user.getChildrenStudyQuran()))
-            .count();
-        long studyFalse = users.stream()
-            .filter(this::resolveHasChildren)
-            .filter(user -> Boolean.FALSE.equals(user.getChildrenStudyQuran()))
-            .count();
-        long studyUnknown = usersWithChildren - studyTrue - studyFalse;
-
+        UserChildrenStats stats = userAttributeStore.childrenStats()
+            .orElseGet(userAttributeStore::loadChildrenStats);
         return new PublicChildrenStatsResponse(
-            totalUsers,
-            usersWithChildren,
-            usersWithoutChildren,
-            studyTrue,
-            studyFalse,
-            studyUnknown
+            stats.totalUsers(),
+            stats.usersWithChildren(),
+            stats.totalUsers() - stats.usersWithChildren(),
+            stats.usersWithChildrenStudyQuranTrue(),
+            stats.usersWithChildrenStudyQuranFalse(),
+            stats.usersWithChildren()
+                - stats.usersWithChildrenStudyQuranTrue()
+                - stats.usersWithChildrenStudyQuranFalse()
         );
     }
 
     public boolean hasAccess(Long userId, String phone) {
-        if (userId == null || phone == null || phone.isBlank()) {
+        String phoneDigits = PhoneNumbers.digits(phone);
+        if (userId == null || phoneDigits == null) {
             return false;
         }
-        return userRepository.findByUserId(userId)
-            .map(user -> phonesMatch(user.getPhone(), phone))
-            .orElse(false);
+        return userRepository.existsByUserIdAndPhoneDigits(userId, phoneDigits);
     }
 
     public Optional<PublicChildrenSelfResponse> lookupSelf(PublicChildrenLookupRequest request) {
-        return userRepository.findByUserId(request.userId())
-            .filter(user -> phonesMatch(user.getPhone(), request.phone()))
+        String phoneDigits = PhoneNumbers.digits(request.phone());
+        if (phoneDigits == null) {
+            return Optional.empty();
+        }
+        return userRepository.findByUserIdAndPhoneDigits(request.userId(), phoneDigits)
             .map(this::toSelfResponse);
     }
 
@@ -77,17 +66,4 @@ public class PublicChildrenService {
         Integer childrenCount = user.getChildrenCount();
         return childrenCount != null && childrenCount > 0;
     }
-
-    private boolean phonesMatch(String leftPhone, String rightPhone) {
-        String normalizedLeft = normalizePhone(leftPhone);
-        String normalizedRight = normalizePhone(rightPhone);
-        return !normalizedLeft.isEmpty() && normalizedLeft.equals(normalizedRight);
-    }
-
-    private String normalizePhone(String phone) {
-        if (phone == null) {
-            return "";
-        }
-        return phone.replaceAll("\\D", "");
-    }
 }
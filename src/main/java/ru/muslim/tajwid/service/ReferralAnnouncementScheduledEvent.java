@@ -0,0 +1,6 @@
+package ru.muslim.tajwid.service;
+
+import java.time.Instant;
+
+public record ReferralAnnouncementScheduledEvent(long userId, Instant dueAt) {
+}
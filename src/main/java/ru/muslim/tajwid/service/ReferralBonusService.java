@@ -35,7 +35,7 @@ public class ReferralBonusService {
         }
 
         Optional<UserEntity> maybeReferrerLocked = userRepository.findByUserIdForUpdate(payload.referrerUserId());
-        Optional<UserEntity> maybeInvitee = userRepository.findByUserId(payload.inviteeUserId());
+        Optional<UserEntity> maybeInvitee = userRepository.findByNaturalId(payload.inviteeUserId());
 
         if (maybeReferrerLocked.isEmpty() || maybeInvitee.isEmpty()) {
             log.warn("Referrer or invitee not found for payload: {}", payload);
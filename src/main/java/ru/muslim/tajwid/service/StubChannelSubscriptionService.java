@@ -2,17 +2,21 @@ package ru.muslim.tajwid.service;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class StubChannelSubscriptionService implements ChannelSubscriptionService {
 
     private final Map<Long, SubscriptionState> stateByUserId = new ConcurrentHashMap<>();
+    private final AtomicInteger checksInsideTransaction = new AtomicInteger();
 
     @Override
     public SubscriptionCheckResult checkSchoolChannelSubscription(long userId) {
+        recordTransactionState();
         SubscriptionState state = stateByUserId.get(userId);
         if (state == null) {
             return SubscriptionCheckResult.NOT_SUBSCRIBED;
@@ -22,6 +26,7 @@ public class StubChannelSubscriptionService implements ChannelSubscriptionServic
 
     @Override
     public SubscriptionCheckResult checkCourseChannelSubscription(long userId) {
+        recordTransactionState();
         SubscriptionState state = stateByUserId.get(userId);
         if (state == null) {
             return SubscriptionCheckResult.NOT_SUBSCRIBED;
@@ -37,6 +42,16 @@ public class StubChannelSubscriptionService implements ChannelSubscriptionServic
         return stateByUserId.getOrDefault(userId, new SubscriptionState(false, false));
     }
 
+    public int getChecksInsideTransaction() {
+        return checksInsideTransaction.get();
+    }
+
+    private void recordTransactionState() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            checksInsideTransaction.incrementAndGet();
+        }
+    }
+
     public record SubscriptionState(boolean schoolSubscribed, boolean courseSubscribed) {
     }
 }
@@ -0,0 +1,112 @@
+package ru.muslim.tajwid.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+
+@Component
+public class SubscriptionResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionResolver.class);
+
+    private final ChannelSubscriptionService channelSubscriptionService;
+    private final TajwidBotProperties properties;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("subscription-check-", 0).factory()
+    );
+    private final Counter unplannedCounter;
+
+    public SubscriptionResolver(ChannelSubscriptionService channelSubscriptionService,
+                                TajwidBotProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.channelSubscriptionService = channelSubscriptionService;
+        this.properties = properties;
+        this.unplannedCounter = Counter.builder("tajwid.flow.subscription.unplanned")
+            .description("Subscription checks that were not resolved before the flow transaction")
+            .register(meterRegistry);
+    }
+
+    public SubscriptionSnapshot resolve(long userId, boolean school, boolean course) {
+        CompletableFuture<SubscriptionCheckResult> schoolResult = school
+            ? CompletableFuture.supplyAsync(() -> channelSubscriptionService.checkSchoolChannelSubscription(userId),
+                executor)
+            : null;
+        SubscriptionCheckResult courseResult = course
+            ? channelSubscriptionService.checkCourseChannelSubscription(userId)
+            : null;
+
+        Map<Long, SubscriptionCheckResult> schoolResults = schoolResult == null
+            ? Map.of()
+            : Map.of(userId, schoolResult.join());
+        Map<Long, SubscriptionCheckResult> courseResults = courseResult == null
+            ? Map.of()
+            : Map.of(userId, courseResult);
+        return snapshot(schoolResults, courseResults);
+    }
+
+    public SubscriptionSnapshot resolveCourse(Collection<Long> userIds) {
+        Set<Long> distinctUserIds = new LinkedHashSet<>(userIds);
+        if (distinctUserIds.isEmpty()) {
+            return snapshot(Map.of(), Map.of());
+        }
+
+        Map<Long, SubscriptionCheckResult> courseResults = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(Math.max(1, properties.getSubscriptionCheckParallelism()));
+        List<CompletableFuture<Void>> checks = distinctUserIds.stream()
+            .map(userId -> CompletableFuture.runAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    courseResults.put(userId, channelSubscriptionService.checkCourseChannelSubscription(userId));
+                } finally {
+                    permits.release();
+                }
+            }, executor))
+            .toList();
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new)).join();
+
+        return snapshot(Map.of(), courseResults);
+    }
+
+    public SubscriptionSnapshot empty() {
+        return snapshot(Map.of(), Map.of());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private SubscriptionSnapshot snapshot(Map<Long, SubscriptionCheckResult> schoolResults,
+                                          Map<Long, SubscriptionCheckResult> courseResults) {
+        return new SubscriptionSnapshot(
+            schoolResults,
+            courseResults,
+            unplanned("school", channelSubscriptionService::checkSchoolChannelSubscription),
+            unplanned("course", channelSubscriptionService::checkCourseChannelSubscription)
+        );
+    }
+
+    private LongFunction<SubscriptionCheckResult> unplanned(String channel,
+                                                            LongFunction<SubscriptionCheckResult> check) {
+        return userId -> {
+            unplannedCounter.increment();
+            log.debug("Unplanned {} subscription check for user {} inside the flow transaction", channel, userId);
+            return check.apply(userId);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package ru.muslim.tajwid.service;
+
+import java.util.Map;
+import java.util.function.LongFunction;
+
+public final class SubscriptionSnapshot implements ChannelSubscriptionService {
+
+    private final Map<Long, SubscriptionCheckResult> schoolResults;
+    private final Map<Long, SubscriptionCheckResult> courseResults;
+    private final LongFunction<SubscriptionCheckResult> schoolFallback;
+    private final LongFunction<SubscriptionCheckResult> courseFallback;
+
+    SubscriptionSnapshot(Map<Long, SubscriptionCheckResult> schoolResults,
+                         Map<Long, SubscriptionCheckResult> courseResults,
+                         LongFunction<SubscriptionCheckResult> schoolFallback,
+                         LongFunction<SubscriptionCheckResult> courseFallback) {
+        this.schoolResults = schoolResults;
+        this.courseResults = courseResults;
+        this.schoolFallback = schoolFallback;
+        this.courseFallback = courseFallback;
+    }
+
+    @Override
+    public SubscriptionCheckResult checkSchoolChannelSubscription(long userId) {
+        SubscriptionCheckResult result = schoolResults.get(userId);
+        return result != null ? result : schoolFallback.apply(userId);
+    }
+
+    @Override
+    public SubscriptionCheckResult checkCourseChannelSubscription(long userId) {
+        SubscriptionCheckResult result = courseResults.get(userId);
+        return result != null ? result : courseFallback.apply(userId);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.muslim.tajwid.service;
+
+import java.util.Collection;
+import ru.muslim.tajwid.domain.ReadingLevel;
+
+public record UserAttributeFilter(
+    Collection<Long> userIds,
+    Boolean hasChildren,
+    Boolean childrenStudyQuran,
+    Collection<ReadingLevel> readingLevels,
+    Boolean registrationCompleted
+) {
+
+    public static final UserAttributeFilter ALL = new UserAttributeFilter(null, null, null, null, null);
+}
@@ -0,0 +1,218 @@
+package ru.muslim.tajwid.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import ru.muslim.tajwid.domain.ReadingLevel;
+
+final class UserAttributeIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet hasChildrenTrue = new BitSet();
+    private final BitSet hasChildrenFalse = new BitSet();
+    private final BitSet studyQuranTrue = new BitSet();
+    private final BitSet studyQuranFalse = new BitSet();
+    private final BitSet registrationCompleted = new BitSet();
+    private final Map<ReadingLevel, BitSet> readingLevels = new EnumMap<>(ReadingLevel.class);
+    private final List<BitSet> bitmaps = new ArrayList<>();
+
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private int size;
+    private long usersWithChildren;
+    private long studyQuranTrueWithChildren;
+    private long studyQuranFalseWithChildren;
+
+    UserAttributeIndex() {
+        for (ReadingLevel level : ReadingLevel.values()) {
+            readingLevels.put(level, new BitSet());
+        }
+        bitmaps.addAll(List.of(
+            hasChildrenTrue,
+            hasChildrenFalse,
+            studyQuranTrue,
+            studyQuranFalse,
+            registrationCompleted
+        ));
+        bitmaps.addAll(readingLevels.values());
+    }
+
+    void upsert(UserAttributes attributes) {
+        lock.writeLock().lock();
+        try {
+            int position = Arrays.binarySearch(userIds, 0, size, attributes.userId());
+            if (position < 0) {
+                position = -position - 1;
+                insertAt(position, attributes.userId());
+            } else {
+                countChildren(position, -1);
+                for (BitSet bitmap : bitmaps) {
+                    bitmap.clear(position);
+                }
+            }
+
+            setIf(hasChildrenTrue, position, Boolean.TRUE.equals(attributes.hasChildren()));
+            setIf(hasChildrenFalse, position, Boolean.FALSE.equals(attributes.hasChildren()));
+            setIf(studyQuranTrue, position, Boolean.TRUE.equals(attributes.childrenStudyQuran()));
+            setIf(studyQuranFalse, position, Boolean.FALSE.equals(attributes.childrenStudyQuran()));
+            setIf(registrationCompleted, position, attributes.registrationCompleted());
+            if (attributes.readingLevel() != null) {
+                readingLevels.get(attributes.readingLevel()).set(position);
+            }
+            countChildren(position, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            int position = Arrays.binarySearch(userIds, 0, size, userId);
+            if (position < 0) {
+                return;
+            }
+            countChildren(position, -1);
+            System.arraycopy(userIds, position + 1, userIds, position, size - position - 1);
+            for (BitSet bitmap : bitmaps) {
+                BitSet tail = bitmap.get(position + 1, size);
+                bitmap.clear(position, size);
+                tail.stream().forEach(offset -> bitmap.set(position + offset));
+            }
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Long> findUserIds(UserAttributeFilter filter, Long afterUserId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(filter);
+            int start = afterUserId == null ? 0 : upperBound(afterUserId);
+            List<Long> result = new ArrayList<>(Math.min(limit, size));
+            for (int i = matches.nextSetBit(start); i >= 0 && result.size() < limit; i = matches.nextSetBit(i + 1)) {
+                result.add(userIds[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long count(UserAttributeFilter filter) {
+        lock.readLock().lock();
+        try {
+            return matches(filter).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    UserChildrenStats childrenStats() {
+        lock.readLock().lock();
+        try {
+            return new UserChildrenStats(
+                size,
+                usersWithChildren,
+                studyQuranTrueWithChildren,
+                studyQuranFalseWithChildren
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matches(UserAttributeFilter filter) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+
+        if (filter.userIds() != null && !filter.userIds().isEmpty()) {
+            BitSet requested = new BitSet(size);
+            for (Long userId : filter.userIds()) {
+                int position = userId == null ? -1 : Arrays.binarySearch(userIds, 0, size, userId);
+                if (position >= 0) {
+                    requested.set(position);
+                }
+            }
+            result.and(requested);
+        }
+        if (filter.hasChildren() != null) {
+            result.and(filter.hasChildren() ? hasChildrenTrue : hasChildrenFalse);
+        }
+        if (filter.childrenStudyQuran() != null) {
+            result.and(filter.childrenStudyQuran() ? studyQuranTrue : studyQuranFalse);
+        }
+        if (filter.readingLevels() != null && !filter.readingLevels().isEmpty()) {
+            BitSet anyLevel = new BitSet(size);
+            for (ReadingLevel level : filter.readingLevels()) {
+                if (level != null) {
+                    anyLevel.or(readingLevels.get(level));
+                }
+            }
+            result.and(anyLevel);
+        }
+        if (filter.registrationCompleted() != null) {
+            if (filter.registrationCompleted()) {
+                result.and(registrationCompleted);
+            } else {
+                result.andNot(registrationCompleted);
+            }
+        }
+        return result;
+    }
+
+    private void insertAt(int position, long userId) {
+        if (size == userIds.length) {
+            userIds = Arrays.copyOf(userIds, userIds.length * 2);
+        }
+        System.arraycopy(userIds, position, userIds, position + 1, size - position);
+        userIds[position] = userId;
+        if (position < size) {
+            for (BitSet bitmap : bitmaps) {
+                BitSet tail = bitmap.get(position, size);
+                bitmap.clear(position, size + 1);
+                tail.stream().forEach(offset -> bitmap.set(position + 1 + offset));
+            }
+        }
+        size++;
+    }
+
+    private void countChildren(int position, int delta) {
+        if (!hasChildrenTrue.get(position)) {
+            return;
+        }
+        usersWithChildren += delta;
+        if (studyQuranTrue.get(position)) {
+            studyQuranTrueWithChildren += delta;
+        } else if (studyQuranFalse.get(position)) {
+            studyQuranFalseWithChildren += delta;
+        }
+    }
+
+    private int upperBound(long userId) {
+        int position = Arrays.binarySearch(userIds, 0, size, userId);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private static void setIf(BitSet bitmap, int position, boolean value) {
+        if (value) {
+            bitmap.set(position);
+        }
+    }
+}
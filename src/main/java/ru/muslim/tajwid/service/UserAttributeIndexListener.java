@@ -0,0 +1,24 @@
+package ru.muslim.tajwid.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.muslim.tajwid.domain.UserRemovedEvent;
+import ru.muslim.tajwid.domain.UserSavedEvent;
+
+@Component
+@RequiredArgsConstructor
+public class UserAttributeIndexListener {
+
+    private final UserAttributeStore userAttributeStore;
+
+    @EventListener
+    public void onUserSaved(UserSavedEvent event) {
+        userAttributeStore.upsertAfterCommit(UserAttributes.from(event.user()));
+    }
+
+    @EventListener
+    public void onUserRemoved(UserRemovedEvent event) {
+        userAttributeStore.removeAfterCommit(event.userId());
+    }
+}
@@ -0,0 +1,289 @@
+package ru.muslim.tajwid.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.ReadingLevel;
+
+@Component
+public class UserAttributeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAttributeStore.class);
+
+    private static final String USER_ATTRIBUTES_SQL = """
+        select user_id, has_children, children_count, children_study_quran, reading_level, registration_completed
+        from users
+        order by user_id
+        """;
+
+    private static final String CHANGED_USER_ATTRIBUTES_SQL = """
+        select user_id, has_children, children_count, children_study_quran, reading_level, registration_completed
+        from users
+        where updated_at > ?
+        order by user_id
+        """;
+
+    private static final String LATEST_UPDATE_SQL = "select max(updated_at) from users";
+
+    private static final String CHILDREN_STATS_SQL = """
+        select count(*) as total_users,
+               count(*) filter (where with_children) as users_with_children,
+               count(*) filter (where with_children and children_study_quran) as study_quran_true,
+               count(*) filter (where with_children and not children_study_quran) as study_quran_false
+        from (
+            select coalesce(has_children, children_count > 0, false) as with_children, children_study_quran
+            from users
+        ) as children
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TajwidBotProperties.UserIndexProperties indexProperties;
+    private final Counter driftCounter;
+    private final Counter caughtUpCounter;
+    private final Object monitor = new Object();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicInteger inFlightChanges = new AtomicInteger();
+
+    private volatile UserAttributeIndex index;
+    private Instant caughtUpTo;
+    private List<Consumer<UserAttributeIndex>> pendingChanges;
+
+    public UserAttributeStore(JdbcTemplate jdbcTemplate, TajwidBotProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexProperties = properties.getUserIndex();
+        Gauge.builder("tajwid.user_index.size", this, store -> {
+                UserAttributeIndex current = store.index;
+                return current == null ? 0 : current.size();
+            })
+            .description("Users held in the in-memory attribute index")
+            .register(meterRegistry);
+        this.driftCounter = Counter.builder("tajwid.user_index.drift")
+            .description("Reconciliations that found the attribute index out of sync with the database")
+            .register(meterRegistry);
+        this.caughtUpCounter = Counter.builder("tajwid.user_index.caught_up")
+            .description("User rows re-read into the attribute index by the periodic catch-up")
+            .register(meterRegistry);
+    }
+
+    public Optional<List<Long>> findUserIds(UserAttributeFilter filter, Long afterUserId, int limit) {
+        UserAttributeIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.findUserIds(filter, afterUserId, limit));
+    }
+
+    public OptionalLong count(UserAttributeFilter filter) {
+        UserAttributeIndex current = index;
+        if (current == null) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(current.count(filter));
+    }
+
+    public Optional<UserChildrenStats> childrenStats() {
+        UserAttributeIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.childrenStats());
+    }
+
+    public UserChildrenStats loadChildrenStats() {
+        return jdbcTemplate.queryForObject(CHILDREN_STATS_SQL, (resultSet, rowNum) -> new UserChildrenStats(
+            resultSet.getLong("total_users"),
+            resultSet.getLong("users_with_children"),
+            resultSet.getLong("study_quran_true"),
+            resultSet.getLong("study_quran_false")
+        ));
+    }
+
+    public void upsertAfterCommit(UserAttributes attributes) {
+        afterCommit(current -> current.upsert(attributes));
+    }
+
+    public void removeAfterCommit(long userId) {
+        afterCommit(current -> current.remove(userId));
+    }
+
+    @Scheduled(
+        initialDelayString = "${tajwid.user-index.initial-delay:PT0S}",
+        fixedDelayString = "${tajwid.user-index.rebuild-delay:PT1H}"
+    )
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            log.info("User attribute index rebuild is already running, skipping");
+            return;
+        }
+        try {
+            rebuildExclusively();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildExclusively() {
+        synchronized (monitor) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        UserAttributeIndex rebuilt = new UserAttributeIndex();
+        Instant rebuiltThrough;
+        try {
+            rebuiltThrough = latestUpdate();
+            jdbcTemplate.query(USER_ATTRIBUTES_SQL, resultSet -> {
+                rebuilt.upsert(readAttributes(resultSet));
+            });
+        } catch (RuntimeException ex) {
+            synchronized (monitor) {
+                pendingChanges = null;
+            }
+            log.error("Failed to rebuild the user attribute index", ex);
+            return;
+        }
+
+        synchronized (monitor) {
+            pendingChanges.forEach(change -> change.accept(rebuilt));
+            pendingChanges = null;
+            index = rebuilt;
+            caughtUpTo = rebuiltThrough;
+        }
+        log.info("User attribute index rebuilt with {} users", rebuilt.size());
+    }
+
+    @Scheduled(
+        initialDelayString = "${tajwid.user-index.catch-up-delay:PT30S}",
+        fixedDelayString = "${tajwid.user-index.catch-up-delay:PT30S}"
+    )
+    public void catchUp() {
+        Instant since;
+        synchronized (monitor) {
+            since = caughtUpTo;
+        }
+        if (index == null || since == null) {
+            return;
+        }
+
+        List<UserAttributes> changed = new ArrayList<>();
+        Instant latestUpdate;
+        try {
+            latestUpdate = latestUpdate();
+            jdbcTemplate.query(CHANGED_USER_ATTRIBUTES_SQL, resultSet -> {
+                changed.add(readAttributes(resultSet));
+            }, Timestamp.from(since.minus(indexProperties.getCatchUpOverlap())));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to catch the user attribute index up with the database", ex);
+            return;
+        }
+
+        synchronized (monitor) {
+            changed.forEach(attributes -> apply(current -> current.upsert(attributes)));
+            if (latestUpdate.isAfter(caughtUpTo)) {
+                caughtUpTo = latestUpdate;
+            }
+        }
+        caughtUpCounter.increment(changed.size());
+    }
+
+    @Scheduled(
+        initialDelayString = "${tajwid.user-index.reconcile-delay:PT5M}",
+        fixedDelayString = "${tajwid.user-index.reconcile-delay:PT5M}"
+    )
+    public void reconcile() {
+        UserAttributeIndex current = index;
+        if (current == null) {
+            return;
+        }
+
+        UserChildrenStats expected = loadChildrenStats();
+        UserChildrenStats actual = current.childrenStats();
+        if (expected.equals(actual)) {
+            return;
+        }
+
+        expected = loadChildrenStats();
+        actual = index.childrenStats();
+        if (expected.equals(actual)) {
+            return;
+        }
+        if (inFlightChanges.get() > 0) {
+            log.debug("User attribute index differs from the database while {} changes are committing, skipping",
+                inFlightChanges.get());
+            return;
+        }
+
+        driftCounter.increment();
+        log.warn("User attribute index drifted from the database (index={}, database={}), rebuilding",
+            actual, expected);
+        rebuild();
+    }
+
+    private Instant latestUpdate() {
+        Timestamp latestUpdate = jdbcTemplate.queryForObject(LATEST_UPDATE_SQL, Timestamp.class);
+        return latestUpdate == null ? Instant.EPOCH : latestUpdate.toInstant();
+    }
+
+    private static UserAttributes readAttributes(ResultSet resultSet) throws SQLException {
+        String readingLevel = resultSet.getString("reading_level");
+        return new UserAttributes(
+            resultSet.getLong("user_id"),
+            UserAttributes.resolveHasChildren(
+                resultSet.getObject("has_children", Boolean.class),
+                resultSet.getObject("children_count", Integer.class)
+            ),
+            resultSet.getObject("children_study_quran", Boolean.class),
+            readingLevel == null ? null : ReadingLevel.valueOf(readingLevel),
+            resultSet.getBoolean("registration_completed")
+        );
+    }
+
+    private void afterCommit(Consumer<UserAttributeIndex> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlightChanges.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    inFlightChanges.decrementAndGet();
+                }
+            });
+            return;
+        }
+        apply(change);
+    }
+
+    private void apply(Consumer<UserAttributeIndex> change) {
+        synchronized (monitor) {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            UserAttributeIndex current = index;
+            if (current != null) {
+                change.accept(current);
+            }
+        }
+    }
+}
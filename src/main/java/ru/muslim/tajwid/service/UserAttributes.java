@@ -0,0 +1,33 @@
+package ru.muslim.tajwid.service;
+
+import ru.muslim.tajwid.domain.ReadingLevel;
+import ru.muslim.tajwid.domain.UserEntity;
+
+public record UserAttributes(
+    long userId,
+    Boolean hasChildren,
+    Boolean childrenStudyQuran,
+    ReadingLevel readingLevel,
+    boolean registrationCompleted
+) {
+
+    public static UserAttributes from(UserEntity user) {
+        return new UserAttributes(
+            user.getUserId(),
+            resolveHasChildren(user.getHasChildren(), user.getChildrenCount()),
+            user.getChildrenStudyQuran(),
+            user.getReadingLevel(),
+            user.isRegistrationCompleted()
+        );
+    }
+
+    public static Boolean resolveHasChildren(Boolean hasChildren, Integer childrenCount) {
+        if (hasChildren != null) {
+            return hasChildren;
+        }
+        if (childrenCount == null) {
+            return null;
+        }
+        return childrenCount > 0;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.muslim.tajwid.service;
+
+public record UserChildrenStats(
+    long totalUsers,
+    long usersWithChildren,
+    long usersWithChildrenStudyQuranTrue,
+    long usersWithChildrenStudyQuranFalse
+) {
+}
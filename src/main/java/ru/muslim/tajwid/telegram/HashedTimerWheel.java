@@ -0,0 +1,106 @@
+package ru.muslim.tajwid.telegram;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class HashedTimerWheel {
+
+    private final long tickMillis;
+    private final Set<Long>[] slots;
+    private final Map<Long, Long> deadlineTicks = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    HashedTimerWheel(Duration tick, int wheelSize, Instant start) {
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.slots = new Set[Math.max(1, wheelSize)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new HashSet<>();
+        }
+        this.currentTick = elapsedTicks(start);
+    }
+
+    void schedule(long key, Instant deadline) {
+        lock.lock();
+        try {
+            long deadlineTick = Math.max(deadlineTick(deadline), currentTick + 1);
+            Long previous = deadlineTicks.put(key, deadlineTick);
+            if (previous != null) {
+                slot(previous).remove(key);
+            }
+            slot(deadlineTick).add(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancel(long key) {
+        lock.lock();
+        try {
+            Long previous = deadlineTicks.remove(key);
+            if (previous != null) {
+                slot(previous).remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    List<Long> advance(Instant now) {
+        long targetTick = elapsedTicks(now);
+        List<Long> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            if (targetTick <= currentTick) {
+                return expired;
+            }
+
+            long steps = Math.min(targetTick - currentTick, slots.length);
+            for (long tick = targetTick - steps + 1; tick <= targetTick; tick++) {
+                Set<Long> slot = slot(tick);
+                slot.removeIf(key -> {
+                    if (deadlineTicks.get(key) > targetTick) {
+                        return false;
+                    }
+                    deadlineTicks.remove(key);
+                    expired.add(key);
+                    return true;
+                });
+            }
+            currentTick = targetTick;
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return deadlineTicks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Set<Long> slot(long tick) {
+        return slots[(int) Math.floorMod(tick, (long) slots.length)];
+    }
+
+    private long elapsedTicks(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+    }
+
+    private long deadlineTick(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli() + tickMillis - 1, tickMillis);
+    }
+}
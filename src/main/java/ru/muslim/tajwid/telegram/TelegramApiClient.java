@@ -1,10 +1,15 @@
 package ru.muslim.tajwid.telegram;
 
+import ru.muslim.tajwid.domain.MessagePriority;
 import ru.muslim.tajwid.web.dto.BotMessageResponse;
 
 public interface TelegramApiClient {
 
-    void sendMessage(BotMessageResponse message);
+    default void sendMessage(BotMessageResponse message) {
+        sendMessage(message, MessagePriority.INTERACTIVE);
+    }
+
+    void sendMessage(BotMessageResponse message, MessagePriority priority);
 
     String getChatMemberStatus(String chatId, long userId);
 
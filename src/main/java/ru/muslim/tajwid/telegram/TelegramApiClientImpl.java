@@ -1,5 +1,6 @@
 package ru.muslim.tajwid.telegram;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -10,12 +11,15 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.MessagePriority;
 import ru.muslim.tajwid.web.dto.BotButtonResponse;
 import ru.muslim.tajwid.web.dto.BotMessageResponse;
 import ru.muslim.tajwid.web.dto.ButtonType;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import tools.jackson.databind.JsonNode;
 
 @Component
@@ -26,17 +30,20 @@ public class TelegramApiClientImpl implements TelegramApiClient {
 
     private final RestClient restClient;
     private final TajwidBotProperties properties;
+    private final TelegramRateLimiter rateLimiter;
 
     public TelegramApiClientImpl(RestClient.Builder restClientBuilder,
-                                 TajwidBotProperties properties) {
+                                 TajwidBotProperties properties,
+                                 TelegramRateLimiter rateLimiter) {
         this.restClient = restClientBuilder
             .baseUrl(properties.getTelegram().getApiBaseUrl())
             .build();
         this.properties = properties;
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
-    public void sendMessage(BotMessageResponse message) {
+    public void sendMessage(BotMessageResponse message, MessagePriority priority) {
         if (message == null || message.recipientUserId() == null || !StringUtils.hasText(message.text())) {
             return;
         }
@@ -52,12 +59,22 @@ public class TelegramApiClientImpl implements TelegramApiClient {
             payload.put("reply_markup", replyMarkup);
         }
 
-        TelegramApiEnvelope response = restClient.post()
-            .uri("/bot{token}/sendMessage", token)
-            .contentType(MediaType.APPLICATION_JSON)
-            .body(payload)
-            .retrieve()
-            .body(TelegramApiEnvelope.class);
+        rateLimiter.acquire(message.recipientUserId(), priority);
+
+        TelegramApiEnvelope response;
+        try {
+            response = restClient.post()
+                .uri("/bot{token}/sendMessage", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload)
+                .retrieve()
+                .body(TelegramApiEnvelope.class);
+        } catch (HttpClientErrorException.TooManyRequests ex) {
+            Duration retryAfter = resolveRetryAfter(ex);
+            rateLimiter.onRetryAfter(message.recipientUserId(), retryAfter);
+            throw new TelegramRateLimitException(
+                "Telegram sendMessage throttled for chat " + message.recipientUserId(), retryAfter);
+        }
 
         if (response == null || !Boolean.TRUE.equals(response.ok())) {
             throw new IllegalStateException("Telegram sendMessage failed: "
@@ -69,10 +86,15 @@ public class TelegramApiClientImpl implements TelegramApiClient {
     public String getChatMemberStatus(String chatId, long userId) {
         String token = botToken();
 
-        TelegramGetChatMemberEnvelope response = restClient.get()
-            .uri("/bot{token}/getChatMember?chat_id={chatId}&user_id={userId}", token, chatId, userId)
-            .retrieve()
-            .body(TelegramGetChatMemberEnvelope.class);
+        TelegramGetChatMemberEnvelope response;
+        try {
+            response = restClient.get()
+                .uri("/bot{token}/getChatMember?chat_id={chatId}&user_id={userId}", token, chatId, userId)
+                .retrieve()
+                .body(TelegramGetChatMemberEnvelope.class);
+        } catch (HttpClientErrorException.TooManyRequests ex) {
+            throw new TelegramRateLimitException("Telegram getChatMember throttled", resolveRetryAfter(ex));
+        }
 
         if (response == null || !Boolean.TRUE.equals(response.ok()) || response.result() == null) {
             log.warn("Telegram getChatMember failed for user {} in chat {}. Description={}",
@@ -116,6 +138,18 @@ public class TelegramApiClientImpl implements TelegramApiClient {
         return token;
     }
 
+    private Duration resolveRetryAfter(HttpClientErrorException ex) {
+        try {
+            TelegramApiEnvelope envelope = ex.getResponseBodyAs(TelegramApiEnvelope.class);
+            if (envelope != null && envelope.parameters() != null && envelope.parameters().retryAfter() != null) {
+                return Duration.ofSeconds(Math.max(1, envelope.parameters().retryAfter()));
+            }
+        } catch (RuntimeException parseEx) {
+            log.debug("Failed to parse Telegram 429 response body: {}", ex.getResponseBodyAsString(), parseEx);
+        }
+        return properties.getTelegram().getRateLimit().getDefaultRetryAfter();
+    }
+
     private Map<String, Object> buildReplyMarkup(List<BotButtonResponse> buttons) {
         if (buttons == null || buttons.isEmpty()) {
             return null;
@@ -174,7 +208,14 @@ public class TelegramApiClientImpl implements TelegramApiClient {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record TelegramApiEnvelope(Boolean ok, JsonNode result, String description) {
+    private record TelegramApiEnvelope(Boolean ok,
+                                       JsonNode result,
+                                       String description,
+                                       TelegramResponseParameters parameters) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record TelegramResponseParameters(@JsonProperty("retry_after") Integer retryAfter) {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
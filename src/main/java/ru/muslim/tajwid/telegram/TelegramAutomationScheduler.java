@@ -6,7 +6,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.MessagePriority;
 import ru.muslim.tajwid.service.BotFlowService;
+import ru.muslim.tajwid.service.OutboundMessageService;
 import ru.muslim.tajwid.web.dto.BotUpdateResult;
 
 @Component
@@ -18,17 +21,45 @@ public class TelegramAutomationScheduler {
 
     private final BotFlowService botFlowService;
     private final TelegramApiClient telegramApiClient;
+    private final OutboundMessageService outboundMessageService;
+    private final TajwidBotProperties properties;
 
     @Scheduled(fixedDelayString = "${tajwid.automation-tick-delay:PT30S}")
     public void tick() {
-        BotUpdateResult result = botFlowService.processScheduledAutomations();
+        if (isTimerWheelEnabled()) {
+            deliver(botFlowService.processPendingReferralAwards());
+            return;
+        }
+        deliver(botFlowService.processScheduledAutomations());
+    }
+
+    @Scheduled(fixedDelayString = "${tajwid.automation.poll-delay:PT5M}")
+    public void pollAnnouncements() {
+        if (isTimerWheelEnabled()) {
+            announceDue();
+        }
+    }
+
+    public void announceDue() {
+        deliver(botFlowService.processDueReferralAnnouncements());
+    }
+
+    private boolean isTimerWheelEnabled() {
+        return properties.getAutomation().getTimerWheel().isEnabled();
+    }
+
+    private void deliver(BotUpdateResult result) {
+        if (outboundMessageService.isEnabled()) {
+            return;
+        }
+
         if (result == null || result.messages() == null || result.messages().isEmpty()) {
             return;
         }
 
         result.messages().forEach(message -> {
             try {
-                telegramApiClient.sendMessage(message);
+                telegramApiClient.sendMessage(message, MessagePriority.AUTOMATION);
             } catch (RuntimeException ex) {
                 log.error("Failed to deliver automation message to {}", message.recipientUserId(), ex);
             }
@@ -1,5 +1,8 @@
 package ru.muslim.tajwid.telegram;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -8,6 +11,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.service.ChannelMembershipService;
 import ru.muslim.tajwid.service.ChannelSubscriptionService;
 import ru.muslim.tajwid.service.SubscriptionCheckResult;
 
@@ -21,40 +25,68 @@ public class TelegramChannelSubscriptionService implements ChannelSubscriptionSe
     private static final Set<String> SUBSCRIBED_STATUSES =
         Set.of("member", "administrator", "creator");
 
-    private final TelegramApiClient telegramApiClient;
+    private final TelegramChatMemberLookup chatMemberLookup;
     private final TajwidBotProperties properties;
     private final TelegramRuntimeChannelRegistry channelRegistry;
+    private final TelegramMembershipCache membershipCache;
+    private final ChannelMembershipService channelMembershipService;
 
     @Override
     public SubscriptionCheckResult checkSchoolChannelSubscription(long userId) {
-        return checkChannelMembership(properties.getTelegram().getSchoolChannelId(), userId);
+        return checkChannelMembership(properties.getTelegram().getSchoolChannelId(), userId, false);
     }
 
     @Override
     public SubscriptionCheckResult checkCourseChannelSubscription(long userId) {
         String configuredChatId = properties.getTelegram().getCourseChannelId();
         if (StringUtils.hasText(configuredChatId)) {
-            return checkChannelMembership(configuredChatId, userId);
+            return checkChannelMembership(configuredChatId, userId, true);
         }
 
         String runtimeChatId = channelRegistry.getDetectedCourseChannelId().orElse(null);
-        return checkChannelMembership(runtimeChatId, userId);
+        return checkChannelMembership(runtimeChatId, userId, true);
     }
 
-    private SubscriptionCheckResult checkChannelMembership(String chatId, long userId) {
-        if (!StringUtils.hasText(chatId)) {
+    private SubscriptionCheckResult checkChannelMembership(String configuredChatId, long userId,
+                                                           boolean courseChannel) {
+        if (!StringUtils.hasText(configuredChatId)) {
             log.warn("Telegram chat id is not configured for membership check");
             return SubscriptionCheckResult.ERROR;
         }
 
+        String chatId = configuredChatId.trim();
+
+        Optional<String> cachedStatus = membershipCache.get(chatId, userId);
+        if (cachedStatus.isPresent()) {
+            return toResult(cachedStatus.get());
+        }
+
         try {
-            String status = telegramApiClient.getChatMemberStatus(chatId, userId);
-            return SUBSCRIBED_STATUSES.contains(status)
-                ? SubscriptionCheckResult.SUBSCRIBED
-                : SubscriptionCheckResult.NOT_SUBSCRIBED;
+            Optional<String> indexedStatus = channelMembershipService.findStatus(chatId, userId);
+            if (indexedStatus.isPresent()) {
+                SubscriptionCheckResult result = toResult(indexedStatus.get());
+                membershipCache.put(chatId, userId, indexedStatus.get(),
+                    result == SubscriptionCheckResult.SUBSCRIBED, courseChannel);
+                return result;
+            }
+
+            Instant observedAt = Instant.now().minusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+            String status = chatMemberLookup.getChatMemberStatus(chatId, userId);
+            SubscriptionCheckResult result = toResult(status);
+            membershipCache.put(chatId, userId, status, result == SubscriptionCheckResult.SUBSCRIBED, courseChannel);
+            if (courseChannel && result == SubscriptionCheckResult.SUBSCRIBED) {
+                channelMembershipService.recordStatus(chatId, userId, status, observedAt);
+            }
+            return result;
         } catch (RuntimeException ex) {
             log.warn("Failed to check Telegram membership for user {} in chat {}", userId, chatId, ex);
             return SubscriptionCheckResult.ERROR;
         }
     }
+
+    private SubscriptionCheckResult toResult(String status) {
+        return SUBSCRIBED_STATUSES.contains(status)
+            ? SubscriptionCheckResult.SUBSCRIBED
+            : SubscriptionCheckResult.NOT_SUBSCRIBED;
+    }
 }
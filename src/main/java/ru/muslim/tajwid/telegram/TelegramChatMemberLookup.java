@@ -0,0 +1,71 @@
+package ru.muslim.tajwid.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+public class TelegramChatMemberLookup {
+
+    private final TelegramApiClient telegramApiClient;
+    private final ConcurrentMap<LookupKey, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter remoteCounter;
+    private final Counter coalescedCounter;
+
+    public TelegramChatMemberLookup(TelegramApiClient telegramApiClient, MeterRegistry meterRegistry) {
+        this.telegramApiClient = telegramApiClient;
+        this.remoteCounter = Counter.builder("tajwid.telegram.membership.lookups")
+            .description("getChatMember lookups by how they were served")
+            .tag("outcome", "remote")
+            .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("tajwid.telegram.membership.lookups")
+            .description("getChatMember lookups by how they were served")
+            .tag("outcome", "coalesced")
+            .register(meterRegistry);
+    }
+
+    public String getChatMemberStatus(String chatId, long userId) {
+        LookupKey key = new LookupKey(chatId, userId);
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return await(existing);
+        }
+
+        try {
+            remoteCounter.increment();
+            String status = telegramApiClient.getChatMemberStatus(chatId, userId);
+            call.complete(status);
+            return status;
+        } catch (Throwable ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private String await(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record LookupKey(String chatId, long userId) {
+    }
+}
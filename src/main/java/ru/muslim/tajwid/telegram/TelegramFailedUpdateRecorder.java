@@ -0,0 +1,42 @@
+package ru.muslim.tajwid.telegram;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.muslim.tajwid.domain.FailedTelegramUpdateEntity;
+import ru.muslim.tajwid.repository.FailedTelegramUpdateRepository;
+import tools.jackson.databind.JsonNode;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class TelegramFailedUpdateRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramFailedUpdateRecorder.class);
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final FailedTelegramUpdateRepository failedTelegramUpdateRepository;
+
+    public void record(JsonNode update, long userId, int attempts, String error) {
+        String payload = update.toString();
+        try {
+            FailedTelegramUpdateEntity entity = new FailedTelegramUpdateEntity();
+            entity.setUserId(userId);
+            entity.setPayload(payload);
+            entity.setAttempts(attempts);
+            entity.setLastError(truncate(error));
+            failedTelegramUpdateRepository.save(entity);
+        } catch (RuntimeException ex) {
+            log.error("Failed to record Telegram update for user {}: {}", userId, payload, ex);
+        }
+    }
+
+    private String truncate(String value) {
+        if (value == null || value.length() <= MAX_ERROR_LENGTH) {
+            return value;
+        }
+        return value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
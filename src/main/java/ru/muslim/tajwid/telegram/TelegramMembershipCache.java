@@ -0,0 +1,168 @@
+package ru.muslim.tajwid.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+public class TelegramMembershipCache {
+
+    private final TajwidBotProperties.MembershipCacheProperties cacheProperties;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Map<String, CachedStatus>> entriesByUser;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter expiredEvictionCounter;
+    private final Counter invalidatedEvictionCounter;
+
+    private int statusCount;
+
+    @Autowired
+    public TelegramMembershipCache(TajwidBotProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    TelegramMembershipCache(TajwidBotProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.cacheProperties = properties.getTelegram().getMembershipCache();
+        this.nanoClock = nanoClock;
+        this.sizeEvictionCounter = evictionCounter(meterRegistry, "size");
+        this.expiredEvictionCounter = evictionCounter(meterRegistry, "expired");
+        this.invalidatedEvictionCounter = evictionCounter(meterRegistry, "invalidated");
+
+        int maxEntries = Math.max(1, cacheProperties.getMaxEntries());
+        this.entriesByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<String, CachedStatus>> eldest) {
+                if (statusCount <= maxEntries) {
+                    return false;
+                }
+                statusCount -= eldest.getValue().size();
+                sizeEvictionCounter.increment(eldest.getValue().size());
+                return true;
+            }
+        };
+
+        this.hitCounter = Counter.builder("tajwid.telegram.membership.cache.hits")
+            .description("Channel membership lookups answered from the cache")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("tajwid.telegram.membership.cache.misses")
+            .description("Channel membership lookups that required a Telegram call")
+            .register(meterRegistry);
+        Gauge.builder("tajwid.telegram.membership.cache.size", this, TelegramMembershipCache::size)
+            .description("Channel membership entries currently cached")
+            .register(meterRegistry);
+    }
+
+    public Optional<String> get(String chatId, long userId) {
+        if (!cacheProperties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        String normalizedChatId = normalize(chatId);
+        long now = nanoClock.getAsLong();
+        lock.lock();
+        try {
+            Map<String, CachedStatus> statuses = entriesByUser.get(userId);
+            CachedStatus cached = statuses == null ? null : statuses.get(normalizedChatId);
+            if (cached == null) {
+                missCounter.increment();
+                return Optional.empty();
+            }
+
+            if (now - cached.expiresAt() >= 0) {
+                statuses.remove(normalizedChatId);
+                statusCount--;
+                if (statuses.isEmpty()) {
+                    entriesByUser.remove(userId);
+                }
+                expiredEvictionCounter.increment();
+                missCounter.increment();
+                return Optional.empty();
+            }
+
+            hitCounter.increment();
+            return Optional.of(cached.status());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String chatId, long userId, String status, boolean subscribed, boolean pushInvalidated) {
+        if (!cacheProperties.isEnabled() || !StringUtils.hasText(chatId) || status == null) {
+            return;
+        }
+
+        Duration ttl = subscribed
+            ? cacheProperties.getPositiveTtl()
+            : pushInvalidated ? cacheProperties.getCourseNegativeTtl() : cacheProperties.getNegativeTtl();
+        if (ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+
+        CachedStatus cached = new CachedStatus(status, nanoClock.getAsLong() + ttl.toNanos());
+        lock.lock();
+        try {
+            Map<String, CachedStatus> statuses = entriesByUser.remove(userId);
+            if (statuses == null) {
+                statuses = new HashMap<>(4);
+            }
+            if (statuses.put(normalize(chatId), cached) == null) {
+                statusCount++;
+            }
+            entriesByUser.put(userId, statuses);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evictUser(long userId) {
+        lock.lock();
+        try {
+            Map<String, CachedStatus> statuses = entriesByUser.remove(userId);
+            if (statuses != null) {
+                statusCount -= statuses.size();
+                invalidatedEvictionCounter.increment(statuses.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double size() {
+        lock.lock();
+        try {
+            return statusCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String normalize(String chatId) {
+        return chatId == null ? "" : chatId.trim();
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("tajwid.telegram.membership.cache.evictions")
+            .description("Channel membership entries removed from the cache")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private record CachedStatus(String status, long expiresAt) {
+    }
+}
@@ -0,0 +1,158 @@
+package ru.muslim.tajwid.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.OutboundMessageStatus;
+import ru.muslim.tajwid.service.ClaimedOutboundMessage;
+import ru.muslim.tajwid.service.OutboundMessageService;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+public class TelegramOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramOutboxWorker.class);
+    private static final int MAX_BATCHES_PER_POLL = 20;
+
+    private final OutboundMessageService outboundMessageService;
+    private final TelegramApiClient telegramApiClient;
+    private final TajwidBotProperties.OutboxProperties outboxProperties;
+    private final ExecutorService deliveryExecutor;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Counter deferredCounter;
+
+    public TelegramOutboxWorker(OutboundMessageService outboundMessageService,
+                                TelegramApiClient telegramApiClient,
+                                TajwidBotProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.outboundMessageService = outboundMessageService;
+        this.telegramApiClient = telegramApiClient;
+        this.outboxProperties = properties.getTelegram().getOutbox();
+        this.deliveryExecutor = Executors.newFixedThreadPool(
+            Math.max(1, outboxProperties.getWorkers()),
+            Thread.ofVirtual().name("telegram-outbox-", 0).factory()
+        );
+
+        this.sentCounter = Counter.builder("tajwid.telegram.outbox.sent")
+            .description("Outbound Telegram messages delivered")
+            .register(meterRegistry);
+        this.retriedCounter = Counter.builder("tajwid.telegram.outbox.retried")
+            .description("Outbound Telegram messages rescheduled after a failed attempt")
+            .register(meterRegistry);
+        this.deadCounter = Counter.builder("tajwid.telegram.outbox.dead")
+            .description("Outbound Telegram messages moved to the dead-letter state")
+            .register(meterRegistry);
+        this.deferredCounter = Counter.builder("tajwid.telegram.outbox.deferred")
+            .description("Outbound Telegram messages postponed by the rate limiter without using an attempt")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${tajwid.telegram.outbox.poll-delay:PT1S}")
+    public void drain() {
+        if (!outboundMessageService.isEnabled()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, outboxProperties.getBatchSize());
+        for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+            List<ClaimedOutboundMessage> batch = outboundMessageService.claimDue(batchSize);
+            deliver(batch);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tajwid.telegram.outbox.purge-delay:PT1H}")
+    public void purgeSent() {
+        if (!outboundMessageService.isEnabled()) {
+            return;
+        }
+
+        int purged = outboundMessageService.purgeSent();
+        if (purged > 0) {
+            log.info("Purged {} delivered outbound messages", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void deliver(List<ClaimedOutboundMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<ClaimedOutboundMessage>> byRecipient = new LinkedHashMap<>();
+        for (ClaimedOutboundMessage claimed : batch) {
+            byRecipient.computeIfAbsent(claimed.message().recipientUserId(), ignored -> new ArrayList<>())
+                .add(claimed);
+        }
+
+        CompletableFuture<?>[] deliveries = byRecipient.values().stream()
+            .map(messages -> CompletableFuture.runAsync(() -> deliverInOrder(messages), deliveryExecutor))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(deliveries).join();
+    }
+
+    private void deliverInOrder(List<ClaimedOutboundMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (!deliverOne(messages.get(i))) {
+                messages.subList(i + 1, messages.size())
+                    .forEach(skipped -> outboundMessageService.release(skipped.id()));
+                return;
+            }
+        }
+    }
+
+    private boolean deliverOne(ClaimedOutboundMessage claimed) {
+        try {
+            telegramApiClient.sendMessage(claimed.message(), claimed.priority());
+            outboundMessageService.markSent(claimed.id());
+            sentCounter.increment();
+            return true;
+        } catch (TelegramRateLimitException ex) {
+            outboundMessageService.reschedule(claimed.id(), ex.getRetryAfter(), ex.getMessage());
+            deferredCounter.increment();
+            return false;
+        } catch (HttpClientErrorException ex) {
+            boolean permanent = ex.getStatusCode().value() != 429;
+            return handleFailure(claimed, ex.getStatusCode().value() + " " + ex.getResponseBodyAsString(), permanent);
+        } catch (RuntimeException ex) {
+            return handleFailure(claimed, ex.getMessage(), false);
+        }
+    }
+
+    private boolean handleFailure(ClaimedOutboundMessage claimed, String error, boolean permanent) {
+        OutboundMessageStatus status = outboundMessageService.markFailed(claimed.id(), error, permanent);
+        if (status == OutboundMessageStatus.DEAD) {
+            deadCounter.increment();
+            log.error("Outbound message {} to {} moved to dead letter after {} attempts: {}",
+                claimed.id(), claimed.message().recipientUserId(), claimed.attempts() + 1, error);
+            return true;
+        }
+
+        retriedCounter.increment();
+        log.warn("Outbound message {} to {} failed, will retry: {}",
+            claimed.id(), claimed.message().recipientUserId(), error);
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.muslim.tajwid.telegram;
+
+import java.time.Duration;
+import lombok.Getter;
+
+@Getter
+public class TelegramRateLimitException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TelegramRateLimitException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,219 @@
+package ru.muslim.tajwid.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.MessagePriority;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+public class TelegramRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramRateLimiter.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final TajwidBotProperties.RateLimitProperties rateLimitProperties;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final Map<Long, ChatBucket> chatBuckets;
+    private final Map<MessagePriority, Timer> waitTimers = new EnumMap<>(MessagePriority.class);
+    private final Counter chatThrottledCounter;
+    private final Counter globalThrottledCounter;
+    private final Counter deferredCounter;
+
+    private double globalTokens;
+    private long globalRefilledAt;
+    private long globalPausedUntil;
+    private long lastThrottledChatId;
+    private long lastThrottledUntil;
+
+    @Autowired
+    public TelegramRateLimiter(TajwidBotProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    TelegramRateLimiter(TajwidBotProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.rateLimitProperties = properties.getTelegram().getRateLimit();
+        this.nanoClock = nanoClock;
+        int trackedChats = Math.max(1, rateLimitProperties.getTrackedChats());
+        this.chatBuckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ChatBucket> eldest) {
+                return size() > trackedChats;
+            }
+        };
+        long now = nanoClock.getAsLong();
+        this.globalTokens = rateLimitProperties.getGlobalBurst();
+        this.globalRefilledAt = now;
+        this.globalPausedUntil = now;
+        this.lastThrottledUntil = now;
+
+        for (MessagePriority priority : MessagePriority.values()) {
+            waitTimers.put(priority, Timer.builder("tajwid.telegram.ratelimit.wait")
+                .description("Time spent waiting for a Telegram send permit")
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        this.chatThrottledCounter = Counter.builder("tajwid.telegram.ratelimit.throttled")
+            .description("Telegram 429 responses received")
+            .tag("scope", "chat")
+            .register(meterRegistry);
+        this.globalThrottledCounter = Counter.builder("tajwid.telegram.ratelimit.throttled")
+            .description("Telegram 429 responses received")
+            .tag("scope", "global")
+            .register(meterRegistry);
+        this.deferredCounter = Counter.builder("tajwid.telegram.ratelimit.deferred")
+            .description("Telegram sends deferred because the permit wait exceeded max-wait")
+            .register(meterRegistry);
+    }
+
+    public void acquire(long chatId, MessagePriority priority) {
+        if (!rateLimitProperties.isEnabled()) {
+            return;
+        }
+
+        long startedAt = nanoClock.getAsLong();
+        long deadline = startedAt + rateLimitProperties.getMaxWait().toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                long now = nanoClock.getAsLong();
+                long waitNanos = tryConsume(chatId, priority, now);
+                if (waitNanos <= 0) {
+                    waitTimers.get(priority).record(now - startedAt, TimeUnit.NANOSECONDS);
+                    return;
+                }
+
+                if (now + waitNanos - deadline > 0) {
+                    waitTimers.get(priority).record(now - startedAt, TimeUnit.NANOSECONDS);
+                    deferredCounter.increment();
+                    throw new TelegramRateLimitException(
+                        "Telegram send permit for chat " + chatId + " is not available within max-wait",
+                        Duration.ofNanos(waitNanos)
+                    );
+                }
+
+                stateChanged.awaitNanos(waitNanos);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TelegramRateLimitException("Interrupted while waiting for a Telegram send permit",
+                rateLimitProperties.getDefaultRetryAfter());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onRetryAfter(long chatId, Duration retryAfter) {
+        long now = nanoClock.getAsLong();
+        long pausedUntil = now + retryAfter.toNanos();
+        lock.lock();
+        try {
+            ChatBucket bucket = chatBucket(chatId, now);
+            bucket.pausedUntil = later(bucket.pausedUntil, pausedUntil);
+            chatThrottledCounter.increment();
+
+            if (lastThrottledChatId != chatId && lastThrottledUntil - now > 0) {
+                globalPausedUntil = later(globalPausedUntil, pausedUntil);
+                globalThrottledCounter.increment();
+                log.warn("Telegram flood control hit for several chats, pausing all sends for {}", retryAfter);
+            } else {
+                log.warn("Telegram flood control hit for chat {}, pausing it for {}", chatId, retryAfter);
+            }
+
+            lastThrottledChatId = chatId;
+            lastThrottledUntil = later(lastThrottledUntil, pausedUntil);
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long tryConsume(long chatId, MessagePriority priority, long now) {
+        if (globalPausedUntil - now > 0) {
+            return globalPausedUntil - now;
+        }
+
+        ChatBucket bucket = chatBucket(chatId, now);
+        if (bucket.pausedUntil - now > 0) {
+            return bucket.pausedUntil - now;
+        }
+
+        refillGlobal(now);
+        bucket.refill(now, rateLimitProperties.getPerChatPerSecond(), rateLimitProperties.getPerChatBurst());
+
+        double requiredGlobal = Math.min(1 + reserveFor(priority), Math.max(1, rateLimitProperties.getGlobalBurst()));
+        if (globalTokens < requiredGlobal) {
+            return nanosUntil(requiredGlobal - globalTokens, rateLimitProperties.getGlobalPerSecond());
+        }
+
+        if (bucket.tokens < 1) {
+            return nanosUntil(1 - bucket.tokens, rateLimitProperties.getPerChatPerSecond());
+        }
+
+        globalTokens -= 1;
+        bucket.tokens -= 1;
+        return 0;
+    }
+
+    private void refillGlobal(long now) {
+        double refill = (now - globalRefilledAt) * rateLimitProperties.getGlobalPerSecond() / NANOS_PER_SECOND;
+        globalTokens = Math.min(rateLimitProperties.getGlobalBurst(), globalTokens + refill);
+        globalRefilledAt = now;
+    }
+
+    private int reserveFor(MessagePriority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> 0;
+            case AUTOMATION -> Math.max(0, rateLimitProperties.getAutomationReserve());
+            case BROADCAST -> Math.max(0, rateLimitProperties.getBroadcastReserve());
+        };
+    }
+
+    private ChatBucket chatBucket(long chatId, long now) {
+        return chatBuckets.computeIfAbsent(chatId,
+            ignored -> new ChatBucket(rateLimitProperties.getPerChatBurst(), now));
+    }
+
+    private static long later(long first, long second) {
+        return first - second >= 0 ? first : second;
+    }
+
+    private static long nanosUntil(double missingTokens, double tokensPerSecond) {
+        double rate = Math.max(tokensPerSecond, 0.001);
+        return Math.max(1L, (long) Math.ceil(missingTokens * NANOS_PER_SECOND / rate));
+    }
+
+    private static final class ChatBucket {
+
+        private double tokens;
+        private long refilledAt;
+        private long pausedUntil;
+
+        private ChatBucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+            this.pausedUntil = refilledAt;
+        }
+
+        private void refill(long now, double tokensPerSecond, int burst) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerSecond / NANOS_PER_SECOND);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ru.muslim.tajwid.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.repository.ReferralAnnouncementDue;
+import ru.muslim.tajwid.service.BotFlowService;
+import ru.muslim.tajwid.service.ReferralAnnouncementScheduledEvent;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+public class TelegramReferralAnnouncementTimer {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramReferralAnnouncementTimer.class);
+
+    private final BotFlowService botFlowService;
+    private final TelegramAutomationScheduler automationScheduler;
+    private final TajwidBotProperties.AutomationProperties automationProperties;
+    private final HashedTimerWheel wheel;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService runner;
+    private final AtomicBoolean runPending = new AtomicBoolean();
+    private final Counter firedCounter;
+
+    public TelegramReferralAnnouncementTimer(BotFlowService botFlowService,
+                                             TelegramAutomationScheduler automationScheduler,
+                                             TajwidBotProperties properties,
+                                             MeterRegistry meterRegistry) {
+        this.botFlowService = botFlowService;
+        this.automationScheduler = automationScheduler;
+        this.automationProperties = properties.getAutomation();
+
+        TajwidBotProperties.TimerWheelProperties timerWheel = automationProperties.getTimerWheel();
+        this.wheel = new HashedTimerWheel(timerWheel.getTick(), timerWheel.getWheelSize(), Instant.now());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("referral-timer").factory()
+        );
+        this.runner = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("referral-timer-run-", 0).factory()
+        );
+        if (timerWheel.isEnabled()) {
+            long tickMillis = Math.max(1, timerWheel.getTick().toMillis());
+            ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+
+        this.firedCounter = Counter.builder("tajwid.automation.timer.fired")
+            .description("Referral announcement timers that reached their due time")
+            .register(meterRegistry);
+        Gauge.builder("tajwid.automation.timer.pending", wheel, HashedTimerWheel::size)
+            .description("Referral announcement timers waiting in the timer wheel")
+            .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferralAnnouncementScheduled(ReferralAnnouncementScheduledEvent event) {
+        if (!automationProperties.getTimerWheel().isEnabled() || event.dueAt() == null) {
+            return;
+        }
+        wheel.schedule(event.userId(), event.dueAt());
+    }
+
+    @Scheduled(fixedDelayString = "${tajwid.automation.poll-delay:PT5M}")
+    public void refill() {
+        if (!automationProperties.getTimerWheel().isEnabled()) {
+            return;
+        }
+
+        Duration horizon = automationProperties.getPollDelay().plus(automationProperties.getTimerWheel().getTick());
+        List<ReferralAnnouncementDue> upcoming =
+            botFlowService.findUpcomingReferralAnnouncements(Instant.now().plus(horizon));
+        upcoming.forEach(due -> wheel.schedule(due.userId(), due.dueAt()));
+        log.debug("Loaded {} upcoming referral announcements into the timer wheel", upcoming.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        runner.shutdownNow();
+    }
+
+    private void advance() {
+        try {
+            List<Long> expired = wheel.advance(Instant.now());
+            if (expired.isEmpty()) {
+                return;
+            }
+            firedCounter.increment(expired.size());
+            if (runPending.compareAndSet(false, true)) {
+                runner.execute(this::announceDue);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Referral announcement timer tick failed", ex);
+        }
+    }
+
+    private void announceDue() {
+        runPending.set(false);
+        try {
+            automationScheduler.announceDue();
+        } catch (RuntimeException ex) {
+            log.error("Failed to process due referral announcements", ex);
+        }
+    }
+}
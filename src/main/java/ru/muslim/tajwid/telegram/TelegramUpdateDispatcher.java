@@ -0,0 +1,212 @@
+package ru.muslim.tajwid.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import tools.jackson.databind.JsonNode;
+
+@Component
+@ConditionalOnProperty(prefix = "tajwid.telegram", name = "enabled", havingValue = "true")
+public class TelegramUpdateDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramUpdateDispatcher.class);
+
+    private final TelegramWebhookService telegramWebhookService;
+    private final TelegramFailedUpdateRecorder failedUpdateRecorder;
+    private final TajwidBotProperties.IntakeProperties intakeProperties;
+    private final ThreadPoolExecutor[] stripes;
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+
+    public TelegramUpdateDispatcher(TelegramWebhookService telegramWebhookService,
+                                    TelegramFailedUpdateRecorder failedUpdateRecorder,
+                                    TajwidBotProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.telegramWebhookService = telegramWebhookService;
+        this.failedUpdateRecorder = failedUpdateRecorder;
+        this.intakeProperties = properties.getTelegram().getIntake();
+        this.stripes = intakeProperties.isAsync() ? createStripes(intakeProperties) : new ThreadPoolExecutor[0];
+
+        this.acceptedCounter = Counter.builder("tajwid.telegram.intake.accepted")
+            .description("Telegram updates accepted into the intake queue")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("tajwid.telegram.intake.rejected")
+            .description("Telegram updates rejected because the intake queue was full")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("tajwid.telegram.intake.failed")
+            .description("Telegram updates that failed every asynchronous attempt and were recorded")
+            .register(meterRegistry);
+        this.retriedCounter = Counter.builder("tajwid.telegram.intake.retried")
+            .description("Asynchronous Telegram update attempts that failed and were retried")
+            .register(meterRegistry);
+        Gauge.builder("tajwid.telegram.intake.queue.depth", this, TelegramUpdateDispatcher::queueDepth)
+            .description("Telegram updates waiting in the intake queue")
+            .register(meterRegistry);
+    }
+
+    public boolean dispatch(JsonNode update) {
+        if (stripes.length == 0) {
+            telegramWebhookService.processUpdate(update);
+            return true;
+        }
+
+        long userId = resolveUserId(update);
+        ThreadPoolExecutor stripe = stripes[Math.floorMod(Long.hashCode(userId), stripes.length)];
+        try {
+            stripe.execute(new IntakeTask(update, userId));
+        } catch (RejectedExecutionException ex) {
+            rejectedCounter.increment();
+            log.warn("Telegram intake queue is full, rejecting update for user {}", userId);
+            return false;
+        }
+
+        acceptedCounter.increment();
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+
+        long deadline = System.nanoTime() + intakeProperties.getShutdownTimeout().toNanos();
+        for (ThreadPoolExecutor stripe : stripes) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !stripe.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    recordDropped(stripe.shutdownNow());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                recordDropped(stripe.shutdownNow());
+            }
+        }
+    }
+
+    private void process(JsonNode update, long userId) {
+        int maxAttempts = Math.max(1, intakeProperties.getMaxAttempts());
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                telegramWebhookService.processUpdate(update);
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt == maxAttempts || !awaitRetry(attempt)) {
+                    failedCounter.increment();
+                    log.error("Failed to process Telegram update for user {} after {} attempts",
+                        userId, attempt, ex);
+                    failedUpdateRecorder.record(update, userId, attempt, ex.toString());
+                    return;
+                }
+                retriedCounter.increment();
+                log.warn("Telegram update for user {} failed on attempt {}, retrying", userId, attempt, ex);
+            }
+        }
+    }
+
+    private boolean awaitRetry(int attempt) {
+        Duration delay = intakeProperties.getRetryDelay().multipliedBy(attempt);
+        if (delay.isZero() || delay.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void recordDropped(List<Runnable> dropped) {
+        if (dropped.isEmpty()) {
+            return;
+        }
+        log.warn("Telegram intake shutdown dropped {} queued updates, recording them", dropped.size());
+        for (Runnable task : dropped) {
+            if (task instanceof IntakeTask intakeTask) {
+                failedUpdateRecorder.record(intakeTask.update, intakeTask.userId, 0, "Dropped at shutdown");
+            }
+        }
+    }
+
+    private double queueDepth() {
+        long depth = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            depth += stripe.getQueue().size();
+        }
+        return depth;
+    }
+
+    private long resolveUserId(JsonNode update) {
+        JsonNode callbackFrom = update.path("callback_query").path("from").path("id");
+        if (callbackFrom.isNumber()) {
+            return callbackFrom.longValue();
+        }
+
+        JsonNode messageFrom = update.path("message").path("from").path("id");
+        if (messageFrom.isNumber()) {
+            return messageFrom.longValue();
+        }
+
+        JsonNode chatMemberUser = update.path("chat_member").path("new_chat_member").path("user").path("id");
+        if (chatMemberUser.isNumber()) {
+            return chatMemberUser.longValue();
+        }
+
+        JsonNode myChatMemberFrom = update.path("my_chat_member").path("from").path("id");
+        if (myChatMemberFrom.isNumber()) {
+            return myChatMemberFrom.longValue();
+        }
+
+        return update.path("channel_post").path("chat").path("id").asLong(0L);
+    }
+
+    private static ThreadPoolExecutor[] createStripes(TajwidBotProperties.IntakeProperties intake) {
+        int stripeCount = Math.max(1, intake.getStripes());
+        int queueCapacity = Math.max(1, intake.getQueueCapacity());
+        ThreadPoolExecutor[] executors = new ThreadPoolExecutor[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            executors[i] = new ThreadPoolExecutor(
+                1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("telegram-intake-" + i + "-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+        }
+        return executors;
+    }
+
+    private final class IntakeTask implements Runnable {
+
+        private final JsonNode update;
+        private final long userId;
+
+        private IntakeTask(JsonNode update, long userId) {
+            this.update = update;
+            this.userId = userId;
+        }
+
+        @Override
+        public void run() {
+            process(update, userId);
+        }
+    }
+}
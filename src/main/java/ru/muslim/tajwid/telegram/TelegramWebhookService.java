@@ -1,5 +1,6 @@
 package ru.muslim.tajwid.telegram;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
@@ -9,7 +10,10 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.MessagePriority;
 import ru.muslim.tajwid.service.BotFlowService;
+import ru.muslim.tajwid.service.ChannelMembershipService;
+import ru.muslim.tajwid.service.OutboundMessageService;
 import ru.muslim.tajwid.web.dto.BotUpdateRequest;
 import ru.muslim.tajwid.web.dto.BotUpdateResult;
 import tools.jackson.databind.JsonNode;
@@ -25,7 +29,10 @@ public class TelegramWebhookService {
     private final TelegramUpdateMapper telegramUpdateMapper;
     private final BotFlowService botFlowService;
     private final TelegramApiClient telegramApiClient;
+    private final OutboundMessageService outboundMessageService;
     private final TelegramRuntimeChannelRegistry channelRegistry;
+    private final TelegramMembershipCache membershipCache;
+    private final ChannelMembershipService channelMembershipService;
     private final TajwidBotProperties properties;
 
     public void processUpdate(JsonNode telegramUpdate) {
@@ -33,7 +40,7 @@ public class TelegramWebhookService {
         logDetectedChannelChatId(telegramUpdate, "my_chat_member");
         logDetectedChannelChatId(telegramUpdate, "chat_member");
 
-        processCourseChannelMembershipUpdate(telegramUpdate);
+        processChannelMembershipUpdate(telegramUpdate);
 
         Optional<BotUpdateRequest> maybeRequest = telegramUpdateMapper.map(telegramUpdate);
         if (maybeRequest.isEmpty()) {
@@ -41,10 +48,10 @@ public class TelegramWebhookService {
         }
 
         BotUpdateResult result = botFlowService.handleUpdate(maybeRequest.get());
-        sendMessages(result);
+        sendMessages(result, maybeRequest.get().userId(), MessagePriority.INTERACTIVE);
     }
 
-    private void processCourseChannelMembershipUpdate(JsonNode update) {
+    private void processChannelMembershipUpdate(JsonNode update) {
         JsonNode chatMember = update.path("chat_member");
         if (!chatMember.isObject()) {
             return;
@@ -60,40 +67,73 @@ public class TelegramWebhookService {
             return;
         }
 
-        String chatIdAsString = String.valueOf(chatId);
-        if (!isCourseChannelChat(chatIdAsString)) {
-            return;
-        }
-
         JsonNode newChatMember = chatMember.path("new_chat_member");
         Long memberUserId = parseLong(newChatMember.path("user").path("id"));
         String newStatus = textOrFallback(newChatMember.path("status"), "");
-        if (memberUserId == null || !SUBSCRIBED_STATUSES.contains(newStatus)) {
+        if (memberUserId == null) {
+            return;
+        }
+
+        String chatIdAsString = String.valueOf(chatId);
+        String chatUsername = textOrFallback(chat.path("username"), "");
+        String courseChatKey = courseChannelKey();
+        String schoolChatKey = normalize(properties.getTelegram().getSchoolChannelId());
+        boolean courseChannel = isSameChannel(courseChatKey, chatIdAsString, chatUsername);
+        String membershipChatKey = courseChannel ? courseChatKey
+            : isSameChannel(schoolChatKey, chatIdAsString, chatUsername) ? schoolChatKey : null;
+
+        boolean recorded = membershipChatKey != null && StringUtils.hasText(newStatus)
+            && channelMembershipService.recordStatus(
+                membershipChatKey, memberUserId, newStatus, parseEventTime(chatMember.path("date")));
+        if (courseChannel && recorded) {
+            boolean subscribed = SUBSCRIBED_STATUSES.contains(newStatus);
+            membershipCache.put(courseChatKey, memberUserId, newStatus, subscribed, true);
+        } else {
+            membershipCache.evictUser(memberUserId);
+        }
+
+        if (!courseChannel || !SUBSCRIBED_STATUSES.contains(newStatus)) {
             return;
         }
 
         BotUpdateResult autoResult = botFlowService.handleCourseChannelSubscriptionConfirmed(memberUserId);
-        sendMessages(autoResult);
+        sendMessages(autoResult, memberUserId, MessagePriority.AUTOMATION);
     }
 
-    private boolean isCourseChannelChat(String chatId) {
+    private String courseChannelKey() {
         String configuredCourseId = normalize(properties.getTelegram().getCourseChannelId());
         if (StringUtils.hasText(configuredCourseId)) {
-            return configuredCourseId.equals(chatId);
+            return configuredCourseId;
         }
+        return channelRegistry.getDetectedCourseChannelId().orElse("");
+    }
 
-        String runtimeCourseId = channelRegistry.getDetectedCourseChannelId().orElse("");
-        return StringUtils.hasText(runtimeCourseId) && runtimeCourseId.equals(chatId);
+    private boolean isSameChannel(String configuredChatId, String chatId, String username) {
+        if (!StringUtils.hasText(configuredChatId)) {
+            return false;
+        }
+        if (configuredChatId.equals(chatId)) {
+            return true;
+        }
+        return configuredChatId.startsWith("@")
+            && StringUtils.hasText(username)
+            && configuredChatId.substring(1).equalsIgnoreCase(username);
     }
 
-    private void sendMessages(BotUpdateResult result) {
+    private void sendMessages(BotUpdateResult result, Long ownerUserId, MessagePriority priority) {
+        if (outboundMessageService.isEnabled()) {
+            return;
+        }
+
         if (result == null || result.messages() == null || result.messages().isEmpty()) {
             return;
         }
 
         result.messages().forEach(message -> {
             try {
-                telegramApiClient.sendMessage(message);
+                telegramApiClient.sendMessage(message, ownerUserId.equals(message.recipientUserId())
+                    ? priority
+                    : MessagePriority.BROADCAST);
             } catch (RuntimeException ex) {
                 log.error("Failed to deliver Telegram message to {}", message.recipientUserId(), ex);
             }
@@ -146,7 +186,7 @@ public class TelegramWebhookService {
         }
 
         String configuredSchoolChatId = normalize(properties.getTelegram().getSchoolChannelId());
-        if (StringUtils.hasText(configuredSchoolChatId) && configuredSchoolChatId.equals(detectedChatId)) {
+        if (isSameChannel(configuredSchoolChatId, detectedChatId, username)) {
             return;
         }
 
@@ -172,6 +212,11 @@ public class TelegramWebhookService {
         return null;
     }
 
+    private Instant parseEventTime(JsonNode node) {
+        Long epochSeconds = parseLong(node);
+        return epochSeconds == null ? Instant.now() : Instant.ofEpochSecond(epochSeconds);
+    }
+
     private String textOrFallback(JsonNode node, String fallback) {
         if (node == null || node.isMissingNode() || node.isNull()) {
             return fallback;
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import ru.muslim.tajwid.domain.PhoneNumbers;
 import ru.muslim.tajwid.domain.ReadingLevel;
 import ru.muslim.tajwid.service.AdminChildrenService;
 import ru.muslim.tajwid.web.dto.AdminChildrenSearchRequest;
@@ -23,6 +24,17 @@ public class AdminChildrenController {
 
     private final AdminChildrenService childrenService;
 
+    @GetMapping("/users/by-phone")
+    public List<AdminChildrenUserResponse> getByPhone(
+        @RequestParam String phone,
+        @RequestParam(defaultValue = "100") Integer limit
+    ) {
+        if (PhoneNumbers.digits(phone) == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный номер телефона");
+        }
+        return childrenService.findByPhone(phone, limit);
+    }
+
     @GetMapping("/users/{userId}")
     public AdminChildrenUserResponse getByUserId(@PathVariable Long userId) {
         return childrenService.getByUserId(userId)
@@ -35,14 +47,16 @@ public class AdminChildrenController {
         @RequestParam(required = false) Boolean childrenStudyQuran,
         @RequestParam(required = false) List<ReadingLevel> readingLevels,
         @RequestParam(required = false) Boolean registrationCompleted,
-        @RequestParam(defaultValue = "100") Integer limit
+        @RequestParam(defaultValue = "100") Integer limit,
+        @RequestParam(required = false) Long afterUserId
     ) {
         return childrenService.getUsers(
             hasChildren,
             childrenStudyQuran,
             readingLevels,
             registrationCompleted,
-            limit
+            limit,
+            afterUserId
         );
     }
 
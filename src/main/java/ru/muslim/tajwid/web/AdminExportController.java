@@ -3,50 +3,114 @@ package ru.muslim.tajwid.web;
 import java.nio.charset.StandardCharsets;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.muslim.tajwid.service.AdminExportService;
-import ru.muslim.tajwid.web.dto.AdminExportSnapshotResponse;
+import ru.muslim.tajwid.service.ExportCursor;
+import ru.muslim.tajwid.service.ExportDelta;
 
 @RestController
 @RequestMapping("/api/admin/export")
 @RequiredArgsConstructor
 public class AdminExportController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Export-Next-Cursor";
+    static final String HAS_MORE_HEADER = "X-Export-Has-More";
+
     private final AdminExportService exportService;
 
-    @GetMapping("/snapshot")
-    public AdminExportSnapshotResponse snapshot() {
-        return exportService.exportSnapshot();
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(exportService::writeSnapshotJson);
+    }
+
+    @GetMapping(value = "/snapshot.ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> snapshotNdjson() {
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tajwid-snapshot.ndjson\"")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(exportService::writeSnapshotNdjson);
     }
 
     @GetMapping(value = "/users.csv", produces = "text/csv")
-    public ResponseEntity<String> usersCsv() {
-        return csvResponse("tajwid-users.csv", exportService.exportUsersCsv());
+    public ResponseEntity<StreamingResponseBody> usersCsv() {
+        return csvResponse("tajwid-users.csv", exportService::writeUsersCsv);
     }
 
     @GetMapping(value = "/flow-contexts.csv", produces = "text/csv")
-    public ResponseEntity<String> flowContextsCsv() {
-        return csvResponse("tajwid-flow-contexts.csv", exportService.exportFlowContextsCsv());
+    public ResponseEntity<StreamingResponseBody> flowContextsCsv() {
+        return csvResponse("tajwid-flow-contexts.csv", exportService::writeFlowContextsCsv);
+    }
+
+    @GetMapping(value = "/users.delta.csv", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> usersDeltaCsv(
+        @RequestParam(required = false) String since,
+        @RequestParam(required = false) Integer limit
+    ) {
+        ExportDelta delta = exportService.planUsersDelta(parseCursor(since), limit);
+        return deltaCsvResponse(
+            "tajwid-users-delta.csv",
+            delta,
+            output -> exportService.writeUsersDeltaCsv(output, delta)
+        );
+    }
+
+    @GetMapping(value = "/flow-contexts.delta.csv", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> flowContextsDeltaCsv(
+        @RequestParam(required = false) String since,
+        @RequestParam(required = false) Integer limit
+    ) {
+        ExportDelta delta = exportService.planFlowContextsDelta(parseCursor(since), limit);
+        return deltaCsvResponse(
+            "tajwid-flow-contexts-delta.csv",
+            delta,
+            output -> exportService.writeFlowContextsDeltaCsv(output, delta)
+        );
     }
 
     @GetMapping(value = "/user-tags.csv", produces = "text/csv")
-    public ResponseEntity<String> userTagsCsv() {
-        return csvResponse("tajwid-user-tags.csv", exportService.exportUserTagsCsv());
+    public ResponseEntity<StreamingResponseBody> userTagsCsv() {
+        return csvResponse("tajwid-user-tags.csv", exportService::writeUserTagsCsv);
     }
 
     @GetMapping(value = "/referral-link-usage.csv", produces = "text/csv")
-    public ResponseEntity<String> referralLinkUsageCsv() {
-        return csvResponse("tajwid-referral-link-usage.csv", exportService.exportReferralLinkUsagesCsv());
+    public ResponseEntity<StreamingResponseBody> referralLinkUsageCsv() {
+        return csvResponse("tajwid-referral-link-usage.csv", exportService::writeReferralLinkUsagesCsv);
     }
 
-    private ResponseEntity<String> csvResponse(String filename, String body) {
+    private ExportCursor parseCursor(String since) {
+        try {
+            return ExportCursor.decode(since);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный курсор выгрузки");
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> deltaCsvResponse(String filename,
+                                                                   ExportDelta delta,
+                                                                   StreamingResponseBody body) {
+        return csvHeaders(filename)
+            .header(NEXT_CURSOR_HEADER, delta.until().encode())
+            .header(HAS_MORE_HEADER, String.valueOf(delta.hasMore()))
+            .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> csvResponse(String filename, StreamingResponseBody body) {
+        return csvHeaders(filename).body(body);
+    }
+
+    private ResponseEntity.BodyBuilder csvHeaders(String filename) {
         return ResponseEntity.ok()
             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
-            .body(body);
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
     }
 }
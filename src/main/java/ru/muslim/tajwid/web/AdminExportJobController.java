@@ -0,0 +1,150 @@
+package ru.muslim.tajwid.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import ru.muslim.tajwid.service.ExportJob;
+import ru.muslim.tajwid.service.ExportJobService;
+import ru.muslim.tajwid.service.ExportJobStatus;
+import ru.muslim.tajwid.web.dto.ExportJobRequest;
+import ru.muslim.tajwid.web.dto.ExportJobResponse;
+
+@RestController
+@RequestMapping("/api/admin/export/jobs")
+@RequiredArgsConstructor
+public class AdminExportJobController {
+
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private final ExportJobService exportJobService;
+
+    @PostMapping
+    public ResponseEntity<ExportJobResponse> submit(@RequestBody ExportJobRequest request) {
+        if (request == null || request.format() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не указан формат выгрузки");
+        }
+
+        ExportJob job = exportJobService.submit(request.format(), request.gzip());
+        return ResponseEntity.accepted()
+            .header(HttpHeaders.LOCATION, jobUrl(job))
+            .body(toResponse(job));
+    }
+
+    @GetMapping("/{jobId}")
+    public ExportJobResponse get(@PathVariable String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    @GetMapping("/{jobId}/file")
+    public void download(@PathVariable String jobId,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        ExportJob job = findJob(jobId);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Выгрузка ещё не готова");
+        }
+
+        long size = job.getSizeBytes();
+        long start = 0;
+        long end = size - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFilename() + "\"");
+        response.setContentType(job.getContentType());
+
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+        if (ranges.size() == 1) {
+            HttpRange range = ranges.getFirst();
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException ex) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        response.setContentLengthLong(end - start + 1);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, job.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+            return;
+        }
+        transfer(job.getFile(), start, end - start + 1, response);
+    }
+
+    private void transfer(Path file, long position, long count, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private List<HttpRange> parseRanges(String header) {
+        if (header == null || header.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException ex) {
+            return List.of();
+        }
+    }
+
+    private ExportJob findJob(String jobId) {
+        return exportJobService.find(jobId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Выгрузка не найдена"));
+    }
+
+    private ExportJobResponse toResponse(ExportJob job) {
+        boolean completed = job.getStatus() == ExportJobStatus.COMPLETED;
+        return new ExportJobResponse(
+            job.getId(),
+            job.getFormat(),
+            job.isGzip(),
+            job.getStatus(),
+            job.getCreatedAt(),
+            job.getStartedAt(),
+            job.getFinishedAt(),
+            completed ? job.getSizeBytes() : null,
+            job.getError(),
+            completed ? jobUrl(job) + "/file" : null
+        );
+    }
+
+    private String jobUrl(ExportJob job) {
+        return "/api/admin/export/jobs/" + job.getId();
+    }
+}
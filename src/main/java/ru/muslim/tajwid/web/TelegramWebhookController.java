@@ -11,7 +11,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.muslim.tajwid.config.TajwidBotProperties;
-import ru.muslim.tajwid.telegram.TelegramWebhookService;
+import ru.muslim.tajwid.telegram.TelegramUpdateDispatcher;
 import tools.jackson.databind.JsonNode;
 
 @RestController
@@ -22,7 +22,7 @@ public class TelegramWebhookController {
 
     private static final String TELEGRAM_SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
 
-    private final TelegramWebhookService telegramWebhookService;
+    private final TelegramUpdateDispatcher telegramUpdateDispatcher;
     private final TajwidBotProperties properties;
 
     @PostMapping("/webhook")
@@ -34,7 +34,9 @@ public class TelegramWebhookController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        telegramWebhookService.processUpdate(update);
+        if (!telegramUpdateDispatcher.dispatch(update)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         return ResponseEntity.ok().build();
     }
 }
@@ -9,9 +9,19 @@ public record AdminChildrenSearchRequest(
     Boolean childrenStudyQuran,
     List<ReadingLevel> readingLevels,
     Boolean registrationCompleted,
-    Integer limit
+    Integer limit,
+    Long afterUserId
 ) {
+    public AdminChildrenSearchRequest(List<Long> userIds,
+                                      Boolean hasChildren,
+                                      Boolean childrenStudyQuran,
+                                      List<ReadingLevel> readingLevels,
+                                      Boolean registrationCompleted,
+                                      Integer limit) {
+        this(userIds, hasChildren, childrenStudyQuran, readingLevels, registrationCompleted, limit, null);
+    }
+
     public static AdminChildrenSearchRequest empty() {
-        return new AdminChildrenSearchRequest(null, null, null, null, null, null);
+        return new AdminChildrenSearchRequest(null, null, null, null, null, null, null);
     }
 }
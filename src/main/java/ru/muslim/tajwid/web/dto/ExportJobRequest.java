@@ -0,0 +1,9 @@
+package ru.muslim.tajwid.web.dto;
+
+import ru.muslim.tajwid.service.ExportJobFormat;
+
+public record ExportJobRequest(
+    ExportJobFormat format,
+    boolean gzip
+) {
+}
@@ -0,0 +1,19 @@
+package ru.muslim.tajwid.web.dto;
+
+import java.time.Instant;
+import ru.muslim.tajwid.service.ExportJobFormat;
+import ru.muslim.tajwid.service.ExportJobStatus;
+
+public record ExportJobResponse(
+    String id,
+    ExportJobFormat format,
+    boolean gzip,
+    ExportJobStatus status,
+    Instant createdAt,
+    Instant startedAt,
+    Instant finishedAt,
+    Long sizeBytes,
+    String error,
+    String downloadUrl
+) {
+}
@@ -0,0 +1,9 @@
+DROP INDEX IF EXISTS idx_users_pending_referral;
+
+DROP INDEX IF EXISTS idx_flow_contexts_referral_announcement_due;
+
+ALTER TABLE IF EXISTS users
+  DROP COLUMN IF EXISTS automation_claimed_until;
+
+ALTER TABLE IF EXISTS flow_contexts
+  DROP COLUMN IF EXISTS automation_claimed_until;
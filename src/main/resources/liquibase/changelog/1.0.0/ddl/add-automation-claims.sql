@@ -0,0 +1,13 @@
+ALTER TABLE flow_contexts
+  ADD COLUMN IF NOT EXISTS automation_claimed_until TIMESTAMP;
+
+ALTER TABLE users
+  ADD COLUMN IF NOT EXISTS automation_claimed_until TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_flow_contexts_referral_announcement_due
+  ON flow_contexts (referral_announcement_due_at, user_id)
+  WHERE referral_announcement_sent = FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_users_pending_referral
+  ON users (user_id)
+  WHERE referral_status = 'PENDING' AND registration_completed = TRUE AND referrer_user_id > 0;
@@ -0,0 +1,6 @@
+ALTER TABLE users
+  ADD COLUMN IF NOT EXISTS phone_digits VARCHAR(32);
+
+CREATE INDEX IF NOT EXISTS idx_users_phone_digits
+  ON users (phone_digits)
+  WHERE phone_digits IS NOT NULL;
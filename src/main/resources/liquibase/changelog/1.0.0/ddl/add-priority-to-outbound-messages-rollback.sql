@@ -0,0 +1,2 @@
+ALTER TABLE IF EXISTS outbound_messages
+  DROP COLUMN IF EXISTS priority;
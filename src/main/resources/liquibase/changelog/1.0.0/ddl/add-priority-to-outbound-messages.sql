@@ -0,0 +1,2 @@
+ALTER TABLE outbound_messages
+  ADD COLUMN priority VARCHAR(32) NOT NULL DEFAULT 'INTERACTIVE';
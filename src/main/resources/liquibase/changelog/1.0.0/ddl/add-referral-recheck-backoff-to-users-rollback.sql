@@ -0,0 +1,9 @@
+DROP INDEX IF EXISTS idx_users_pending_referral_next_check;
+
+CREATE INDEX IF NOT EXISTS idx_users_pending_referral
+  ON users (user_id)
+  WHERE referral_status = 'PENDING' AND registration_completed = TRUE AND referrer_user_id > 0;
+
+ALTER TABLE IF EXISTS users
+  DROP COLUMN IF EXISTS referral_next_check_at,
+  DROP COLUMN IF EXISTS referral_check_attempts;
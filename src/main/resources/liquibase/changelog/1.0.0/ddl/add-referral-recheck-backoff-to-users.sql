@@ -0,0 +1,9 @@
+ALTER TABLE users
+  ADD COLUMN IF NOT EXISTS referral_check_attempts INT NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS referral_next_check_at TIMESTAMP;
+
+DROP INDEX IF EXISTS idx_users_pending_referral;
+
+CREATE INDEX IF NOT EXISTS idx_users_pending_referral_next_check
+  ON users (referral_next_check_at NULLS FIRST, user_id)
+  WHERE referral_status = 'PENDING' AND registration_completed = TRUE AND referrer_user_id > 0;
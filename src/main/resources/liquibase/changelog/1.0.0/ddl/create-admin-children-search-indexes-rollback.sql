@@ -0,0 +1,5 @@
+DROP INDEX IF EXISTS idx_users_children_user_id;
+
+DROP INDEX IF EXISTS idx_users_reading_level_user_id;
+
+DROP INDEX IF EXISTS idx_users_registration_completed_user_id;
@@ -0,0 +1,10 @@
+CREATE INDEX IF NOT EXISTS idx_users_registration_completed_user_id
+  ON users (registration_completed, user_id);
+
+CREATE INDEX IF NOT EXISTS idx_users_reading_level_user_id
+  ON users (reading_level, user_id)
+  WHERE reading_level IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_children_user_id
+  ON users (has_children, children_study_quran, user_id)
+  WHERE has_children IS NOT NULL OR children_count IS NOT NULL;
@@ -0,0 +1,11 @@
+CREATE TABLE channel_memberships (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  chat_id VARCHAR(64) NOT NULL,
+  user_id BIGINT NOT NULL,
+  status VARCHAR(32) NOT NULL,
+  event_at TIMESTAMP NOT NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE channel_memberships
+  ADD CONSTRAINT uq_channel_memberships_chat_user UNIQUE (chat_id, user_id);
@@ -0,0 +1,17 @@
+CREATE OR REPLACE FUNCTION export_instant(value TIMESTAMP)
+RETURNS TEXT
+LANGUAGE sql
+STABLE
+AS $$
+  SELECT to_char(utc, 'YYYY-MM-DD"T"HH24:MI:SS')
+    || CASE
+         WHEN micros = 0 THEN ''
+         WHEN micros % 1000 = 0 THEN '.' || lpad((micros / 1000)::text, 3, '0')
+         ELSE '.' || lpad(micros::text, 6, '0')
+       END
+    || 'Z'
+  FROM (
+    SELECT utc, (extract(microseconds FROM utc)::bigint % 1000000) AS micros
+    FROM (SELECT (value AT TIME ZONE current_setting('TimeZone')) AT TIME ZONE 'UTC' AS utc) AS converted
+  ) AS parts
+$$;
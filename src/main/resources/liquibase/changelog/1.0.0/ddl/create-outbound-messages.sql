@@ -0,0 +1,26 @@
+CREATE TABLE outbound_messages (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  recipient_user_id BIGINT NOT NULL,
+  text TEXT NOT NULL,
+  buttons TEXT,
+  status VARCHAR(32) NOT NULL,
+  attempts INTEGER NOT NULL DEFAULT 0,
+  next_attempt_at TIMESTAMP NOT NULL,
+  locked_until TIMESTAMP,
+  last_error VARCHAR(1024),
+  sent_at TIMESTAMP,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_outbound_messages_pending_due
+  ON outbound_messages (next_attempt_at, id)
+  WHERE status = 'PENDING';
+
+CREATE INDEX idx_outbound_messages_pending_recipient
+  ON outbound_messages (recipient_user_id, id)
+  WHERE status = 'PENDING';
+
+CREATE INDEX idx_outbound_messages_sent_at
+  ON outbound_messages (sent_at)
+  WHERE status = 'SENT';
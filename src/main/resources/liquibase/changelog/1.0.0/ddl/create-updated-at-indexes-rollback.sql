@@ -0,0 +1,3 @@
+DROP INDEX IF EXISTS idx_flow_contexts_updated_at_id;
+
+DROP INDEX IF EXISTS idx_users_updated_at_id;
@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_users_updated_at_id
+  ON users (updated_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_flow_contexts_updated_at_id
+  ON flow_contexts (updated_at, id);
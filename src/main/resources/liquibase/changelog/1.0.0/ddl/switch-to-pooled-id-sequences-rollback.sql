@@ -0,0 +1,33 @@
+CREATE SEQUENCE IF NOT EXISTS registration_notification_admins_id_seq;
+
+SELECT setval('registration_notification_admins_id_seq', COALESCE(MAX(id), 0) + 1, false)
+FROM registration_notification_admins;
+
+ALTER TABLE registration_notification_admins
+  ALTER COLUMN id SET DEFAULT nextval('registration_notification_admins_id_seq');
+
+ALTER SEQUENCE registration_notification_admins_id_seq OWNED BY registration_notification_admins.id;
+
+DROP SEQUENCE IF EXISTS registration_notification_admins_seq;
+
+ALTER TABLE flow_contexts
+  ALTER COLUMN id DROP DEFAULT;
+
+DROP SEQUENCE IF EXISTS flow_contexts_seq;
+
+ALTER TABLE flow_contexts
+  ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY;
+
+SELECT setval(pg_get_serial_sequence('flow_contexts', 'id'), COALESCE(MAX(id), 0) + 1, false)
+FROM flow_contexts;
+
+ALTER TABLE user_tags
+  ALTER COLUMN id DROP DEFAULT;
+
+DROP SEQUENCE IF EXISTS user_tags_seq;
+
+ALTER TABLE user_tags
+  ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY;
+
+SELECT setval(pg_get_serial_sequence('user_tags', 'id'), COALESCE(MAX(id), 0) + 1, false)
+FROM user_tags;
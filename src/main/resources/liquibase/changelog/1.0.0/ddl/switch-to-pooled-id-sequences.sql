@@ -0,0 +1,35 @@
+CREATE SEQUENCE IF NOT EXISTS user_tags_seq INCREMENT BY 50;
+
+SELECT setval('user_tags_seq', COALESCE(MAX(id), 0) + 50) FROM user_tags;
+
+ALTER TABLE user_tags
+  ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE user_tags
+  ALTER COLUMN id SET DEFAULT nextval('user_tags_seq');
+
+ALTER SEQUENCE user_tags_seq OWNED BY user_tags.id;
+
+CREATE SEQUENCE IF NOT EXISTS flow_contexts_seq INCREMENT BY 50;
+
+SELECT setval('flow_contexts_seq', COALESCE(MAX(id), 0) + 50) FROM flow_contexts;
+
+ALTER TABLE flow_contexts
+  ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE flow_contexts
+  ALTER COLUMN id SET DEFAULT nextval('flow_contexts_seq');
+
+ALTER SEQUENCE flow_contexts_seq OWNED BY flow_contexts.id;
+
+CREATE SEQUENCE IF NOT EXISTS registration_notification_admins_seq INCREMENT BY 50;
+
+SELECT setval('registration_notification_admins_seq', COALESCE(MAX(id), 0) + 50)
+FROM registration_notification_admins;
+
+ALTER TABLE registration_notification_admins
+  ALTER COLUMN id SET DEFAULT nextval('registration_notification_admins_seq');
+
+ALTER SEQUENCE registration_notification_admins_seq OWNED BY registration_notification_admins.id;
+
+DROP SEQUENCE IF EXISTS registration_notification_admins_id_seq;
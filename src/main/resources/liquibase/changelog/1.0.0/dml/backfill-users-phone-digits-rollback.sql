@@ -0,0 +1,3 @@
+UPDATE users
+SET phone_digits = NULL
+WHERE phone_digits IS NOT NULL;
@@ -0,0 +1,4 @@
+UPDATE users
+SET phone_digits = NULLIF(regexp_replace(phone, '[^0-9]', '', 'g'), '')
+WHERE phone IS NOT NULL
+  AND phone_digits IS DISTINCT FROM NULLIF(regexp_replace(phone, '[^0-9]', '', 'g'), '');
@@ -0,0 +1,41 @@
+package ru.muslim.tajwid.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ClientRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenThrottlesUntilRefill() {
+        ClientRateLimiter limiter = new ClientRateLimiter(2, 3, 100, 4);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isEqualTo(SECOND / 2);
+        assertThat(limiter.tryAcquire("10.0.0.2", 0)).isZero();
+
+        assertThat(limiter.tryAcquire("10.0.0.1", SECOND / 4)).isEqualTo(SECOND / 4);
+        assertThat(limiter.tryAcquire("10.0.0.1", SECOND / 2)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", SECOND / 2)).isPositive();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedClientsBeyondCapacity() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 2, 1);
+
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+        assertThat(limiter.tryAcquire("b", 0)).isZero();
+        assertThat(limiter.tryAcquire("a", 0)).isPositive();
+        assertThat(limiter.tryAcquire("c", 0)).isZero();
+
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(limiter.evictions()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a", 0)).isPositive();
+        assertThat(limiter.tryAcquire("b", 0)).isZero();
+    }
+}
@@ -0,0 +1,310 @@
+package ru.muslim.tajwid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.config.TajwidBotProperties.CsvExportEngine;
+import ru.muslim.tajwid.repository.FlowContextRepository;
+import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
+import ru.muslim.tajwid.repository.UserRepository;
+import ru.muslim.tajwid.repository.UserTagRepository;
+import ru.muslim.tajwid.support.PostgresContainerTestBase;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+class AdminExportServiceTest extends PostgresContainerTestBase {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminExportServiceTest.class);
+    private static final int USER_COUNT = 50_000;
+    private static final long HEAP_SAMPLE_INTERVAL_BYTES = 1024 * 1024;
+
+    @Autowired
+    private AdminExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TajwidBotProperties properties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FlowContextRepository flowContextRepository;
+
+    @Autowired
+    private UserTagRepository userTagRepository;
+
+    @Autowired
+    private ReferralLinkUsageRepository referralLinkUsageRepository;
+
+    @BeforeEach
+    void cleanDatabase() {
+        referralLinkUsageRepository.deleteAll();
+        userTagRepository.deleteAll();
+        flowContextRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void usersCsvReadsThroughAForwardOnlyCursorWithTheConfiguredFetchSize() {
+        seedUsers();
+        CursorRecordingJdbcTemplate recordingJdbcTemplate = new CursorRecordingJdbcTemplate(dataSource);
+        AdminExportService recordingService = new AdminExportService(recordingJdbcTemplate, objectMapper, properties);
+        CountingOutputStream output = new CountingOutputStream();
+
+        transactionTemplate.executeWithoutResult(status ->
+            recordingService.writeCsv(output, ExportTable.USERS, CsvExportEngine.JDBC));
+
+        assertThat(output.lines).isEqualTo(USER_COUNT + 1);
+        assertThat(recordingJdbcTemplate.resultSetType).isEqualTo(ResultSet.TYPE_FORWARD_ONLY);
+        assertThat(recordingJdbcTemplate.resultSetConcurrency).isEqualTo(ResultSet.CONCUR_READ_ONLY);
+        assertThat(recordingJdbcTemplate.fetchSize).isEqualTo(properties.getExport().getFetchSize());
+        assertThat(recordingJdbcTemplate.autoCommit).isFalse();
+    }
+
+    @Test
+    void usersCsvKeepsHeaderAndValueFormat() {
+        Instant registeredAt = Instant.parse("2026-03-01T10:15:30Z");
+        jdbcTemplate.update("""
+            insert into users (user_id, telegram_first_name, user_name, age, registration_completed,
+                               registration_completed_at, referral_status, referral_counted_at, referral_link_cp)
+            values (?, ?, ?, ?, true, ?, 'NOT_APPLICABLE', ?, ?)
+            """, 42L, "Amin, Jr", "Амин", 23, Timestamp.from(registeredAt), Timestamp.from(Instant.EPOCH),
+            "https://t.me/tajwid_test_bot?start=42");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.writeUsersCsv(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines[0]).startsWith("user_id,telegram_first_name,telegram_username,user_name,age,");
+        assertThat(lines[0]).endsWith(",referral_points,referral_link_cp,created_at,updated_at");
+        assertThat(lines[1]).startsWith("42,\"Amin, Jr\",,Амин,23,");
+        assertThat(lines[1]).contains(",true,2026-03-01T10:15:30Z,0,NOT_APPLICABLE,1970-01-01T00:00:00Z,0,");
+    }
+
+    @Test
+    void copyEngineMatchesJdbcEngineByteForByte() {
+        Instant registeredAt = Instant.parse("2026-03-01T10:15:30.123456Z");
+        jdbcTemplate.update("""
+            insert into users (user_id, telegram_first_name, user_name, age, has_children, children_ages, phone,
+                               registration_completed, registration_completed_at, referral_status,
+                               referral_counted_at, referral_link_cp)
+            values (?, ?, ?, ?, true, ?, ?, true, ?, 'NOT_APPLICABLE', ?, ?)
+            """, 42L, "Amin, \"Jr\"", "Амин\nАминов", 23, "3,5", "+79990000042", Timestamp.from(registeredAt),
+            Timestamp.from(Instant.parse("2026-03-02T00:00:00.250Z")), "https://t.me/tajwid_test_bot?start=42");
+        jdbcTemplate.update("""
+            insert into flow_contexts (user_id, current_step, flow_type, user_name, temp_tags,
+                                       referral_announcement_sent)
+            values (?, 'FLOW1_WAIT_CONSENT_ACCEPT', 'NORMAL', ?, ?, false)
+            """, 42L, "Амин", "tag1;tag2");
+        jdbcTemplate.update("insert into user_tags (user_id, tag, created_at) values (?, ?, ?)",
+            42L, "has_children", Timestamp.from(registeredAt));
+
+        for (ExportTable table : ExportTable.SNAPSHOT) {
+            assertThat(exportCsv(table, CsvExportEngine.COPY))
+                .as("%s export", table.table())
+                .isEqualTo(exportCsv(table, CsvExportEngine.JDBC));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    @EnabledIfSystemProperty(named = "tajwid.benchmark", matches = "true")
+    void benchmarkCsvEngines(int rows) {
+        seedGeneratedUsers(rows);
+        exportCsv(ExportTable.USERS, CsvExportEngine.JDBC);
+        exportCsv(ExportTable.USERS, CsvExportEngine.COPY);
+
+        for (CsvExportEngine engine : CsvExportEngine.values()) {
+            CountingOutputStream output = new CountingOutputStream();
+            long startedAt = System.nanoTime();
+            transactionTemplate.executeWithoutResult(
+                status -> exportService.writeCsv(output, ExportTable.USERS, engine)
+            );
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+
+            assertThat(output.lines).isEqualTo(rows + 1);
+            log.info("users.csv engine={} rows={} bytes={} elapsed={}ms rowsPerSecond={}",
+                engine, rows, output.bytes, elapsed.toMillis(),
+                rows * 1_000_000_000L / Math.max(1, elapsed.toNanos()));
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "tajwid.benchmark", matches = "true")
+    void benchmarkUsersCsvHeapGrowth() {
+        seedUsers();
+        HeapSamplingOutputStream output = new HeapSamplingOutputStream();
+
+        exportService.writeUsersCsv(output);
+
+        assertThat(output.lines).isEqualTo(USER_COUNT + 1);
+        assertThat(output.bytes).isGreaterThan(4L * HEAP_SAMPLE_INTERVAL_BYTES);
+        log.info("users.csv rows={} bytes={} maxHeapGrowth={}", USER_COUNT, output.bytes, output.maxHeapGrowth());
+        assertThat(output.maxHeapGrowth())
+            .as("retained heap while streaming %d bytes", output.bytes)
+            .isLessThan(output.bytes / 2);
+    }
+
+    private String exportCsv(ExportTable table, CsvExportEngine engine) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        transactionTemplate.executeWithoutResult(status -> exportService.writeCsv(output, table, engine));
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private void seedGeneratedUsers(int rows) {
+        jdbcTemplate.update("""
+            insert into users (user_id, telegram_first_name, user_name, age, phone, registration_completed,
+                               registration_completed_at, referral_status, referral_counted_at, referral_link_cp)
+            select id, 'User ' || id, 'Пользователь ' || id, 20 + id % 40, '+7999' || lpad(id::text, 7, '0'),
+                   true, now(), 'NOT_APPLICABLE', now(), 'https://t.me/tajwid_test_bot?start=' || id
+            from generate_series(1, ?) as id
+            """, rows);
+    }
+
+    private void seedUsers() {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (long userId = 1; userId <= USER_COUNT; userId++) {
+            batch.add(new Object[] {
+                userId,
+                "User " + userId,
+                "Пользователь " + userId,
+                "+7999" + String.format("%07d", userId),
+                now,
+                now,
+                "https://t.me/tajwid_test_bot?start=" + userId
+            });
+        }
+        jdbcTemplate.batchUpdate("""
+            insert into users (user_id, telegram_first_name, user_name, phone, registration_completed,
+                               registration_completed_at, referral_status, referral_counted_at, referral_link_cp)
+            values (?, ?, ?, ?, true, ?, 'NOT_APPLICABLE', ?, ?)
+            """, batch);
+    }
+
+    private static final class CursorRecordingJdbcTemplate extends JdbcTemplate {
+
+        private int resultSetType;
+        private int resultSetConcurrency;
+        private int fetchSize;
+        private boolean autoCommit = true;
+
+        private CursorRecordingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> T query(PreparedStatementCreator creator, ResultSetExtractor<T> extractor) {
+            return super.query(creator, (ResultSetExtractor<T>) resultSet -> {
+                Statement statement = resultSet.getStatement();
+                resultSetType = resultSet.getType();
+                resultSetConcurrency = resultSet.getConcurrency();
+                fetchSize = statement.getFetchSize();
+                autoCommit = statement.getConnection().getAutoCommit();
+                return extractor.extractData(resultSet);
+            });
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int value) {
+            bytes++;
+            if (value == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+
+    private static final class HeapSamplingOutputStream extends OutputStream {
+
+        private final long baseline = usedHeap();
+        private long maxUsed = baseline;
+        private long bytes;
+        private long lines;
+        private long nextSampleAt = HEAP_SAMPLE_INTERVAL_BYTES;
+
+        @Override
+        public void write(int value) {
+            count(value);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                count(buffer[i]);
+            }
+        }
+
+        long maxHeapGrowth() {
+            return maxUsed - baseline;
+        }
+
+        private void count(int value) {
+            bytes++;
+            if (value == '\n') {
+                lines++;
+            }
+            if (bytes >= nextSampleAt) {
+                nextSampleAt += HEAP_SAMPLE_INTERVAL_BYTES;
+                maxUsed = Math.max(maxUsed, usedHeap());
+            }
+        }
+
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -2,13 +2,21 @@ package ru.muslim.tajwid.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.muslim.tajwid.config.TajwidBotProperties;
 import ru.muslim.tajwid.domain.FlowContextEntity;
 import ru.muslim.tajwid.domain.FlowStep;
@@ -16,6 +24,7 @@ import ru.muslim.tajwid.domain.FlowType;
 import ru.muslim.tajwid.domain.ReadingLevel;
 import ru.muslim.tajwid.domain.ReferralStatus;
 import ru.muslim.tajwid.domain.UserEntity;
+import ru.muslim.tajwid.domain.UserTagEntity;
 import ru.muslim.tajwid.repository.FlowContextRepository;
 import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
 import ru.muslim.tajwid.repository.UserRepository;
@@ -25,6 +34,7 @@ import ru.muslim.tajwid.web.dto.BotUpdateRequest;
 import ru.muslim.tajwid.web.dto.BotUpdateResult;
 import ru.muslim.tajwid.web.dto.ButtonType;
 import ru.muslim.tajwid.support.PostgresContainerTestBase;
+import ru.muslim.tajwid.support.SqlStatementRecorder;
 
 @SpringBootTest
 class BotFlowServiceTest extends PostgresContainerTestBase {
@@ -40,6 +50,7 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
     private static final String FLOW3_CONSENT_CONTINUE = "FLOW3_CONSENT_CONTINUE";
     private static final String FLOW4_HAS_CHILDREN_YES = "FLOW4_HAS_CHILDREN:YES";
     private static final String FLOW4_CHILDREN_STUDY_YES = "FLOW4_CHILDREN_STUDY:YES";
+    private static final Pattern USERS_TABLE = Pattern.compile("\\b(from|into|update)\\s+users\\b");
 
     @Autowired
     private BotFlowService botFlowService;
@@ -56,6 +67,9 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserAttributeStore userAttributeStore;
+
     @Autowired
     private FlowContextRepository flowContextRepository;
 
@@ -65,6 +79,12 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
     @Autowired
     private ReferralLinkUsageRepository referralLinkUsageRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     void cleanDatabase() {
         referralLinkUsageRepository.deleteAll();
@@ -111,6 +131,57 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
         assertThat(userTagRepository.existsByUserIdAndTag(userId, "Рефер получил ссылку")).isTrue();
     }
 
+    @Test
+    void registrationCompletionWritesUserAndTagsWithOneStatementEach() {
+        long userId = 2L;
+        subscriptionService.setSubscriptionState(userId, true, false);
+
+        send(userId, "Ali", "/start", null, null);
+        send(userId, "Ali", null, FLOW1_INTRO_CONTINUE, null);
+        send(userId, "Ali", null, FLOW1_CONSENT_CONTINUE, null);
+        send(userId, "Ali", "Али", null, null);
+        send(userId, "Ali", "22", null, null);
+        send(userId, "Ali", null, FLOW1_HAS_CHILDREN_NO, null);
+        send(userId, "Ali", null, null, new BotContactPayload(userId, "+79990000000"));
+
+        List<String> statements = SqlStatementRecorder.record(
+            () -> send(userId, "Ali", null, "FLOW1_LEVEL:KNOW_BASICS", null)
+        );
+
+        assertThat(statements).filteredOn(sql -> USERS_TABLE.matcher(sql).find()).hasSize(1);
+        assertThat(statements).filteredOn(sql -> sql.contains("user_tags")).hasSize(1);
+
+        UserEntity user = userRepository.findByUserId(userId).orElseThrow();
+        assertThat(user.isRegistrationCompleted()).isTrue();
+        assertThat(user.getPhoneDigits()).isEqualTo("79990000000");
+        assertThat(user.getCreatedAt()).isNotNull();
+        assertThat(userTagRepository.findAllByUserId(userId)).extracting(UserTagEntity::getTag)
+            .contains(ReadingLevel.KNOW_BASICS.label());
+    }
+
+    @Test
+    void staleCallbackDoesNotRewriteFlowContextAndUpdatesOnlyChangedColumns() {
+        long userId = 3L;
+        subscriptionService.setSubscriptionState(userId, true, true);
+        send(userId, "Ali", "/start", null, null);
+        Instant updatedAt = flowContextRepository.findByUserId(userId).orElseThrow().getUpdatedAt();
+
+        List<String> staleTap = SqlStatementRecorder.record(
+            () -> send(userId, "Ali", null, "UNKNOWN_CALLBACK", null)
+        );
+
+        assertThat(staleTap).noneMatch(sql -> sql.startsWith("update flow_contexts"));
+        assertThat(flowContextRepository.findByUserId(userId).orElseThrow().getUpdatedAt()).isEqualTo(updatedAt);
+
+        List<String> stepChange = SqlStatementRecorder.record(
+            () -> send(userId, "Ali", null, FLOW1_INTRO_CONTINUE, null)
+        );
+
+        assertThat(stepChange).filteredOn(sql -> sql.startsWith("update flow_contexts"))
+            .singleElement()
+            .satisfies(sql -> assertThat(sql).contains("current_step").doesNotContain("children_ages"));
+    }
+
     @Test
     void childrenQuestionUsesYesNoButtons() {
         long userId = 11L;
@@ -267,6 +338,77 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
             .isEqualTo(FlowType.REFERRAL);
     }
 
+    @Test
+    void interactiveUpdatesResolveSubscriptionChecksBeforeTheFlowTransaction() {
+        int checksInsideTransaction = subscriptionService.getChecksInsideTransaction();
+        double unplannedChecks = unplannedSubscriptionChecks();
+        long userId = 31L;
+        subscriptionService.setSubscriptionState(userId, false, false);
+
+        BotUpdateResult afterStart = send(userId, "Ali", "/start", null, null);
+        subscriptionService.setSubscriptionState(userId, true, false);
+        send(userId, "Ali", null, "FLOW1_SCHOOL_RECHECK", null);
+        assertThat(flowContextRepository.findByUserId(userId).orElseThrow().getCurrentStep())
+            .isEqualTo(FlowStep.FLOW1_WAIT_CONSENT_ACCEPT);
+        send(userId, "Ali", null, FLOW1_CONSENT_CONTINUE, null);
+        send(userId, "Ali", "Али", null, null);
+        send(userId, "Ali", "22", null, null);
+        send(userId, "Ali", null, FLOW1_HAS_CHILDREN_NO, null);
+        send(userId, "Ali", null, null, new BotContactPayload(userId, "+79990000000"));
+        subscriptionService.setSubscriptionState(userId, true, true);
+        BotUpdateResult afterReadingLevel = send(userId, "Ali", null, "FLOW1_LEVEL:START_FROM_ZERO", null);
+        registerInviteeWithoutCourseSubscription(32L, userId);
+
+        assertThat(afterStart.messages()).hasSize(1);
+        assertThat(afterReadingLevel.messages()).hasSize(2);
+        assertThat(afterReadingLevel.messages().get(1).text()).contains("Вы записались — альхамдулиллях");
+        assertThat(userRepository.findByUserId(32L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.PENDING);
+        assertThat(subscriptionService.getChecksInsideTransaction()).isEqualTo(checksInsideTransaction);
+        assertThat(unplannedSubscriptionChecks()).isEqualTo(unplannedChecks);
+    }
+
+    @Test
+    void scheduledAutomationResolvesCourseChecksBeforeTheTransaction() {
+        createReferrer(820L);
+        registerInviteeWithoutCourseSubscription(821L, 820L);
+        registerInviteeWithoutCourseSubscription(822L, 820L);
+        subscriptionService.setSubscriptionState(821L, true, true);
+        int checksInsideTransaction = subscriptionService.getChecksInsideTransaction();
+        double unplannedChecks = unplannedSubscriptionChecks();
+
+        botFlowService.processScheduledAutomations();
+
+        assertThat(userRepository.findByUserId(820L).orElseThrow().getReferralPoints()).isEqualTo(1);
+        assertThat(userRepository.findByUserId(821L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.COUNTED);
+        assertThat(userRepository.findByUserId(822L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.PENDING);
+        assertThat(subscriptionService.getChecksInsideTransaction()).isEqualTo(checksInsideTransaction);
+        assertThat(unplannedSubscriptionChecks()).isEqualTo(unplannedChecks);
+    }
+
+    @Test
+    void courseMembershipUpdateLoadsEachUserAndContextOnce() {
+        createReferrer(300L);
+        registerInviteeWithoutCourseSubscription(301L, 300L);
+        subscriptionService.setSubscriptionState(301L, true, true);
+
+        List<String> statements = SqlStatementRecorder.record(
+            () -> botFlowService.handleCourseChannelSubscriptionConfirmed(301L)
+        );
+
+        assertThat(statements)
+            .filteredOn(sql -> sql.startsWith("select") && USERS_TABLE.matcher(sql).find())
+            .hasSize(2);
+        assertThat(statements)
+            .filteredOn(sql -> sql.startsWith("select") && sql.contains(" from flow_contexts "))
+            .hasSize(1);
+        assertThat(userRepository.findByUserId(300L).orElseThrow().getReferralPoints()).isEqualTo(1);
+        assertThat(userRepository.findByUserId(301L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.COUNTED);
+    }
+
     @Test
     void membershipTriggerDoesNotAwardWhenCourseSubscriptionIsNotConfirmed() {
         createReferrer(900L);
@@ -316,6 +458,208 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
         assertThat(referralLinkUsageRepository.findByReferrerUserIdAndInviteeUserId(800L, 801L)).isPresent();
     }
 
+    @Test
+    void scheduledAutomationAwardsPendingReferralsAcrossChunks() {
+        createReferrer(810L);
+        registerInviteeWithoutCourseSubscription(811L, 810L);
+        registerInviteeWithoutCourseSubscription(812L, 810L);
+        registerInviteeWithoutCourseSubscription(813L, 810L);
+        subscriptionService.setSubscriptionState(811L, true, true);
+        subscriptionService.setSubscriptionState(812L, true, true);
+        subscriptionService.setSubscriptionState(813L, true, true);
+
+        int originalChunkSize = properties.getAutomation().getChunkSize();
+        try {
+            properties.getAutomation().setChunkSize(1);
+
+            botFlowService.processScheduledAutomations();
+        } finally {
+            properties.getAutomation().setChunkSize(originalChunkSize);
+        }
+
+        UserEntity referrer = userRepository.findByUserId(810L).orElseThrow();
+        assertThat(referrer.getReferralPoints()).isEqualTo(3);
+        assertThat(userRepository.findByUserId(813L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.COUNTED);
+    }
+
+    @Test
+    void referralAwardPassAwardsPendingInviteesOnItsOwn() {
+        createReferrer(860L);
+        registerInviteeWithoutCourseSubscription(861L, 860L);
+        subscriptionService.setSubscriptionState(861L, true, true);
+
+        BotUpdateResult result = botFlowService.processPendingReferralAwards();
+
+        assertThat(result.messages())
+            .anyMatch(message -> message.recipientUserId().equals(860L)
+                && message.text().contains("+1 к общей копилке"));
+        assertThat(userRepository.findByUserId(861L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.COUNTED);
+    }
+
+    @Test
+    void referralRecheckBacksOffPerInviteeAndOnlyPicksDueInvitees() {
+        Duration initialBackoff = properties.getAutomation().getReferralRecheckInitialBackoff();
+        createReferrer(870L);
+        registerInviteeWithoutCourseSubscription(871L, 870L);
+        registerInviteeWithoutCourseSubscription(872L, 870L);
+
+        Instant beforeFirstPass = Instant.now();
+        botFlowService.processPendingReferralAwards();
+
+        UserEntity firstCheck = userRepository.findByUserId(871L).orElseThrow();
+        assertThat(firstCheck.getReferralCheckAttempts()).isEqualTo(1);
+        assertThat(firstCheck.getReferralNextCheckAt())
+            .isBetween(beforeFirstPass.plus(initialBackoff), Instant.now().plus(initialBackoff.multipliedBy(2)));
+
+        subscriptionService.setSubscriptionState(871L, true, true);
+        botFlowService.processPendingReferralAwards();
+        assertThat(userRepository.findByUserId(871L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.PENDING);
+
+        makeReferralRecheckDue(871L);
+        makeReferralRecheckDue(872L);
+        Instant beforeSecondPass = Instant.now();
+        botFlowService.processPendingReferralAwards();
+
+        assertThat(userRepository.findByUserId(871L).orElseThrow().getReferralStatus())
+            .isEqualTo(ReferralStatus.COUNTED);
+        UserEntity secondCheck = userRepository.findByUserId(872L).orElseThrow();
+        assertThat(secondCheck.getReferralCheckAttempts()).isEqualTo(2);
+        assertThat(secondCheck.getReferralNextCheckAt())
+            .isBetween(beforeSecondPass.plus(initialBackoff.multipliedBy(2)),
+                Instant.now().plus(initialBackoff.multipliedBy(3)));
+    }
+
+    @Test
+    void courseJoinEventResetsReferralRecheckBackoff() {
+        createReferrer(875L);
+        createInvitee(876L, 875L);
+        createInvitee(877L, 875L);
+        Instant farFuture = Instant.now().plus(Duration.ofHours(6));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.updateReferralCheckBackoff(876L, 5, farFuture);
+            userRepository.updateReferralCheckBackoff(877L, 5, farFuture);
+        });
+        subscriptionService.setSubscriptionState(876L, true, true);
+
+        botFlowService.handleCourseChannelSubscriptionConfirmed(876L);
+        botFlowService.handleCourseChannelSubscriptionConfirmed(877L);
+
+        UserEntity joined = userRepository.findByUserId(876L).orElseThrow();
+        assertThat(joined.getReferralStatus()).isEqualTo(ReferralStatus.COUNTED);
+        assertThat(joined.getReferralCheckAttempts()).isZero();
+        assertThat(joined.getReferralNextCheckAt()).isNull();
+
+        UserEntity notYetVisible = userRepository.findByUserId(877L).orElseThrow();
+        assertThat(notYetVisible.getReferralStatus()).isEqualTo(ReferralStatus.PENDING);
+        assertThat(notYetVisible.getReferralCheckAttempts()).isZero();
+        assertThat(notYetVisible.getReferralNextCheckAt()).isNull();
+
+        botFlowService.processPendingReferralAwards();
+        assertThat(userRepository.findByUserId(877L).orElseThrow().getReferralCheckAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentAutomationClaimersGetDisjointBatches() throws Exception {
+        createReferrer(840L);
+        for (long inviteeId = 841L; inviteeId <= 844L; inviteeId++) {
+            createInvitee(inviteeId, 840L);
+        }
+        Instant now = Instant.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstClaimLocked = new CountDownLatch(1);
+        CountDownLatch secondClaimDone = new CountDownLatch(1);
+
+        CompletableFuture<List<Long>> firstClaim = CompletableFuture.supplyAsync(() ->
+            transactionTemplate.execute(status -> {
+                List<Long> userIds = userRepository.lockPendingReferralAwardUserIds(now, 2);
+                userRepository.updateAutomationClaimedUntil(userIds, now.plusSeconds(120));
+                firstClaimLocked.countDown();
+                try {
+                    secondClaimDone.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return userIds;
+            }));
+
+        assertThat(firstClaimLocked.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Long> secondClaim = transactionTemplate.execute(
+            status -> userRepository.lockPendingReferralAwardUserIds(now, 10));
+        secondClaimDone.countDown();
+        List<Long> firstClaimed = firstClaim.get(10, TimeUnit.SECONDS);
+
+        assertThat(firstClaimed).hasSize(2);
+        assertThat(secondClaim).hasSize(2).doesNotContainAnyElementsOf(firstClaimed);
+        assertThat(transactionTemplate.execute(status -> userRepository.lockPendingReferralAwardUserIds(now, 10)))
+            .containsExactlyInAnyOrderElementsOf(secondClaim);
+    }
+
+    @Test
+    void automationClaimRefreshesAlreadyLoadedEntities() {
+        createReferrer(850L);
+        createInvitee(851L, 850L);
+        Instant claimedUntil = Instant.now().plusSeconds(120);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Instant seenInTransaction = transactionTemplate.execute(status -> {
+            userRepository.findAllByUserIdIn(List.of(851L));
+            userRepository.updateAutomationClaimedUntil(List.of(851L), claimedUntil);
+            return userRepository.findAllByUserIdIn(List.of(851L)).getFirst().getAutomationClaimedUntil();
+        });
+
+        assertThat(seenInTransaction).isNotNull();
+        assertThat(userRepository.findByUserId(851L).orElseThrow().getAutomationClaimedUntil()).isNotNull();
+    }
+
+    @Test
+    void registrationUpsertRefreshesAUserAlreadyLoadedInTheTransaction() {
+        createReferrer(860L);
+        userAttributeStore.rebuild();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        UserEntity registered = transactionTemplate.execute(status -> {
+            UserEntity loaded = userRepository.findByUserId(860L).orElseThrow();
+            UserEntity registration = new UserEntity();
+            registration.setUserId(860L);
+            registration.setTelegramFirstName("Referrer");
+            registration.setUserName("Обновлённое имя");
+            registration.setHasChildren(true);
+            registration.setChildrenCount(2);
+            registration.setReadingLevel(ReadingLevel.KNOW_BASICS);
+            registration.setRegistrationCompleted(true);
+            registration.setUpdatedAt(Instant.now());
+
+            UserEntity refreshed = userRepository.refreshUpserted(
+                userRepository.upsertRegistration(registration), registration);
+            assertThat(refreshed).isSameAs(loaded);
+            return refreshed;
+        });
+
+        assertThat(registered.getUserName()).isEqualTo("Обновлённое имя");
+        assertThat(registered.getChildrenCount()).isEqualTo(2);
+        assertThat(userAttributeStore.findUserIds(
+            new UserAttributeFilter(List.of(860L), true, null, null, null), null, 10
+        )).contains(List.of(860L));
+    }
+
+    @Test
+    void automationGaugesDescribeOnlyAnnouncementsStillWaitingToBeSent() {
+        Instant dueAt = Instant.now().minusSeconds(60);
+        Instant claimedElsewhere = Instant.now().plusSeconds(300);
+        saveClaimedAnnouncement(880L, FlowStep.FLOW1_WAIT_REFERRAL_PROGRAM_ANNOUNCEMENT, dueAt, claimedElsewhere);
+        saveClaimedAnnouncement(881L, FlowStep.FLOW2_WAIT_LINK_REQUEST, dueAt.minusSeconds(600), claimedElsewhere);
+
+        botFlowService.processDueReferralAnnouncements();
+
+        assertThat(meterRegistry.get("tajwid.automation.remaining").tag("job", "announcements").gauge().value())
+            .isEqualTo(1.0);
+        assertThat(meterRegistry.get("tajwid.automation.lag").gauge().value())
+            .isBetween(60.0, 600.0);
+    }
+
     @Test
     void flow2WaitsForCourseSubscriptionEvenAfterDelay() {
         long userId = 21L;
@@ -456,6 +800,40 @@ class BotFlowServiceTest extends PostgresContainerTestBase {
         return botFlowService.handleUpdate(new BotUpdateRequest(userId, firstName, text, callbackData, contact));
     }
 
+    private void saveClaimedAnnouncement(long userId, FlowStep step, Instant dueAt, Instant claimedUntil) {
+        FlowContextEntity context = new FlowContextEntity();
+        context.setUserId(userId);
+        context.setFlowType(FlowType.NORMAL);
+        context.setCurrentStep(step);
+        context.setReferralAnnouncementDueAt(dueAt);
+        context.setAutomationClaimedUntil(claimedUntil);
+        flowContextRepository.save(context);
+    }
+
+    private void makeReferralRecheckDue(long userId) {
+        UserEntity user = userRepository.findByUserId(userId).orElseThrow();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> userRepository
+            .updateReferralCheckBackoff(userId, user.getReferralCheckAttempts(), Instant.now().minusSeconds(1)));
+    }
+
+    private double unplannedSubscriptionChecks() {
+        return meterRegistry.get("tajwid.flow.subscription.unplanned").counter().count();
+    }
+
+    private void registerInviteeWithoutCourseSubscription(long inviteeId, long referrerId) {
+        subscriptionService.setSubscriptionState(inviteeId, true, false);
+
+        send(inviteeId, "Invitee", "/start " + referrerId, null, null);
+        send(inviteeId, "Invitee", null, FLOW3_SCHOOL_RECHECK, null);
+        send(inviteeId, "Invitee", null, FLOW3_CONSENT_CONTINUE, null);
+        send(inviteeId, "Invitee", "Осман", null, null);
+        send(inviteeId, "Invitee", "19", null, null);
+        send(inviteeId, "Invitee", null, FLOW4_HAS_CHILDREN_YES, null);
+        send(inviteeId, "Invitee", null, FLOW4_CHILDREN_STUDY_YES, null);
+        send(inviteeId, "Invitee", null, null, new BotContactPayload(inviteeId, "+7999111223" + (inviteeId % 10)));
+        send(inviteeId, "Invitee", null, "FLOW4_LEVEL:KNOW_BASICS", null);
+    }
+
     private void createReferrer(long userId) {
         UserEntity user = new UserEntity();
         user.setUserId(userId);
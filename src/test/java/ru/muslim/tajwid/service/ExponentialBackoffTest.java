@@ -0,0 +1,43 @@
+package ru.muslim.tajwid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+class ExponentialBackoffTest {
+
+    private static final Duration INITIAL = Duration.ofSeconds(5);
+    private static final Duration MAX = Duration.ofMinutes(15);
+
+    @Test
+    void doublesPerAttemptWithUpToTwentyPercentJitter() {
+        RandomGenerator random = new SplittableRandom(42);
+        for (int attempts = 1; attempts <= 7; attempts++) {
+            Duration base = INITIAL.multipliedBy(1L << (attempts - 1));
+            for (int sample = 0; sample < 100; sample++) {
+                assertThat(ExponentialBackoff.delay(attempts, INITIAL, MAX, random))
+                    .isBetween(base, base.plus(base.dividedBy(5)));
+            }
+        }
+    }
+
+    @Test
+    void isCappedAtMaxForLargeAttemptCounts() {
+        RandomGenerator random = new SplittableRandom(42);
+        assertThat(ExponentialBackoff.delay(9, INITIAL, MAX, random)).isEqualTo(MAX);
+        assertThat(ExponentialBackoff.delay(40, INITIAL, MAX, random)).isEqualTo(MAX);
+        assertThat(ExponentialBackoff.delay(Integer.MAX_VALUE, INITIAL, MAX, random)).isEqualTo(MAX);
+    }
+
+    @Test
+    void treatsNonPositiveAttemptsAsTheFirstAttempt() {
+        RandomGenerator random = new SplittableRandom(42);
+        assertThat(ExponentialBackoff.delay(0, INITIAL, MAX, random))
+            .isBetween(INITIAL, INITIAL.plus(INITIAL.dividedBy(5)));
+        assertThat(ExponentialBackoff.delay(-3, INITIAL, MAX, random))
+            .isBetween(INITIAL, INITIAL.plus(INITIAL.dividedBy(5)));
+    }
+}
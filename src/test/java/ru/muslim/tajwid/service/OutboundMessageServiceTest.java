@@ -0,0 +1,160 @@
+package ru.muslim.tajwid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.OutboundMessageEntity;
+import ru.muslim.tajwid.domain.OutboundMessageStatus;
+import ru.muslim.tajwid.repository.OutboundMessageRepository;
+import ru.muslim.tajwid.support.PostgresContainerTestBase;
+
+@SpringBootTest
+class OutboundMessageServiceTest extends PostgresContainerTestBase {
+
+    @Autowired
+    private OutboundMessageService outboundMessageService;
+
+    @Autowired
+    private OutboundMessageRepository outboundMessageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TajwidBotProperties properties;
+
+    @BeforeEach
+    void cleanDatabase() {
+        outboundMessageRepository.deleteAll();
+    }
+
+    @Test
+    void claimsEachRecipientsDueMessagesInOrderOnce() {
+        long first = save(1L, "a1");
+        long second = save(1L, "a2");
+        long third = save(2L, "b1");
+        long fourth = save(1L, "a3");
+
+        assertThat(claimedIds(outboundMessageService.claimDue(10))).containsExactly(first, second, third, fourth);
+        assertThat(outboundMessageService.claimDue(10)).isEmpty();
+        assertThat(outboundMessageRepository.findById(first).orElseThrow().getLockedUntil()).isNotNull();
+    }
+
+    @Test
+    void skipsRecipientWhoseHeadIsLockedByAnUncommittedClaim() throws Exception {
+        long head = save(1L, "a1");
+        save(1L, "a2");
+        long other = save(2L, "b1");
+        save(1L, "a3");
+
+        CountDownLatch headLocked = new CountDownLatch(1);
+        CountDownLatch claimDone = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CompletableFuture<List<Long>> concurrentClaim = CompletableFuture.supplyAsync(() ->
+            transactionTemplate.execute(status -> {
+                List<Long> locked = outboundMessageRepository.lockDueHeadIds(Instant.now(), 1);
+                headLocked.countDown();
+                await(claimDone);
+                status.setRollbackOnly();
+                return locked;
+            }));
+
+        assertThat(headLocked.await(10, TimeUnit.SECONDS)).isTrue();
+        List<ClaimedOutboundMessage> claimed = outboundMessageService.claimDue(10);
+        claimDone.countDown();
+
+        assertThat(concurrentClaim.get(10, TimeUnit.SECONDS)).containsExactly(head);
+        assertThat(claimedIds(claimed)).containsExactly(other);
+    }
+
+    @Test
+    void failedMessageBacksOffExponentiallyAndHoldsBackTheRecipient() {
+        long first = save(1L, "a1");
+        long second = save(1L, "a2");
+        Duration initialBackoff = properties.getTelegram().getOutbox().getInitialBackoff();
+
+        assertThat(claimedIds(outboundMessageService.claimDue(10))).containsExactly(first, second);
+        Instant beforeFirstFailure = Instant.now();
+        assertThat(outboundMessageService.markFailed(first, "boom", false)).isEqualTo(OutboundMessageStatus.PENDING);
+        outboundMessageService.release(second);
+
+        OutboundMessageEntity failed = outboundMessageRepository.findById(first).orElseThrow();
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getLastError()).isEqualTo("boom");
+        assertThat(failed.getLockedUntil()).isNull();
+        assertThat(failed.getNextAttemptAt())
+            .isBetween(beforeFirstFailure.plus(initialBackoff), Instant.now().plus(initialBackoff.multipliedBy(2)));
+        assertThat(outboundMessageService.claimDue(10)).isEmpty();
+
+        makeDue(first);
+        assertThat(claimedIds(outboundMessageService.claimDue(10))).containsExactly(first, second);
+        Instant beforeSecondFailure = Instant.now();
+        outboundMessageService.markFailed(first, "boom", false);
+
+        assertThat(outboundMessageRepository.findById(first).orElseThrow().getNextAttemptAt())
+            .isBetween(beforeSecondFailure.plus(initialBackoff.multipliedBy(2)),
+                Instant.now().plus(initialBackoff.multipliedBy(3)));
+    }
+
+    @Test
+    void messageBecomesDeadAfterMaxAttemptsOrPermanentFailureAndUnblocksTheNextOne() {
+        int maxAttempts = properties.getTelegram().getOutbox().getMaxAttempts();
+        long exhausted = save(1L, "a1");
+        long next = save(1L, "a2");
+        long rejected = save(2L, "b1");
+        OutboundMessageEntity entity = outboundMessageRepository.findById(exhausted).orElseThrow();
+        entity.setAttempts(maxAttempts - 1);
+        outboundMessageRepository.save(entity);
+
+        assertThat(claimedIds(outboundMessageService.claimDue(1))).containsExactly(exhausted);
+        assertThat(outboundMessageService.markFailed(exhausted, "boom", false)).isEqualTo(OutboundMessageStatus.DEAD);
+        assertThat(claimedIds(outboundMessageService.claimDue(1))).containsExactly(next);
+        outboundMessageService.markSent(next);
+
+        assertThat(claimedIds(outboundMessageService.claimDue(10))).containsExactly(rejected);
+        assertThat(outboundMessageService.markFailed(rejected, "403 Forbidden", true))
+            .isEqualTo(OutboundMessageStatus.DEAD);
+
+        assertThat(outboundMessageRepository.findById(exhausted).orElseThrow().getAttempts()).isEqualTo(maxAttempts);
+        assertThat(outboundMessageRepository.findById(rejected).orElseThrow().getStatus())
+            .isEqualTo(OutboundMessageStatus.DEAD);
+        assertThat(outboundMessageService.claimDue(10)).isEmpty();
+    }
+
+    private long save(long recipientUserId, String text) {
+        OutboundMessageEntity entity = new OutboundMessageEntity();
+        entity.setRecipientUserId(recipientUserId);
+        entity.setText(text);
+        return outboundMessageRepository.save(entity).getId();
+    }
+
+    private void makeDue(long id) {
+        OutboundMessageEntity entity = outboundMessageRepository.findById(id).orElseThrow();
+        entity.setNextAttemptAt(Instant.now().minusSeconds(1));
+        outboundMessageRepository.save(entity);
+    }
+
+    private static List<Long> claimedIds(List<ClaimedOutboundMessage> claimed) {
+        return claimed.stream().map(ClaimedOutboundMessage::id).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
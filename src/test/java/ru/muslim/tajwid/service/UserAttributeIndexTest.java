@@ -0,0 +1,78 @@
+package ru.muslim.tajwid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import ru.muslim.tajwid.domain.ReadingLevel;
+
+class UserAttributeIndexTest {
+
+    @Test
+    void filtersByCombinedAttributesInUserIdOrder() {
+        UserAttributeIndex index = new UserAttributeIndex();
+        index.upsert(new UserAttributes(30L, true, true, ReadingLevel.KNOW_BASICS, true));
+        index.upsert(new UserAttributes(10L, true, false, ReadingLevel.START_FROM_ZERO, true));
+        index.upsert(new UserAttributes(20L, false, null, ReadingLevel.KNOW_BASICS, false));
+        index.upsert(new UserAttributes(40L, null, null, null, true));
+
+        assertThat(index.findUserIds(UserAttributeFilter.ALL, null, 10)).containsExactly(10L, 20L, 30L, 40L);
+        assertThat(index.findUserIds(new UserAttributeFilter(null, true, null, null, true), null, 10))
+            .containsExactly(10L, 30L);
+        assertThat(index.findUserIds(
+            new UserAttributeFilter(null, null, null, List.of(ReadingLevel.KNOW_BASICS), null), null, 10
+        )).containsExactly(20L, 30L);
+        assertThat(index.findUserIds(new UserAttributeFilter(List.of(40L, 99L), null, null, null, null), null, 10))
+            .containsExactly(40L);
+        assertThat(index.count(new UserAttributeFilter(null, null, null, null, false))).isEqualTo(1);
+    }
+
+    @Test
+    void pagesAfterUserIdWithLimit() {
+        UserAttributeIndex index = new UserAttributeIndex();
+        for (long userId = 1; userId <= 5; userId++) {
+            index.upsert(new UserAttributes(userId * 10, true, null, null, true));
+        }
+
+        assertThat(index.findUserIds(UserAttributeFilter.ALL, null, 2)).containsExactly(10L, 20L);
+        assertThat(index.findUserIds(UserAttributeFilter.ALL, 20L, 2)).containsExactly(30L, 40L);
+        assertThat(index.findUserIds(UserAttributeFilter.ALL, 25L, 10)).containsExactly(30L, 40L, 50L);
+        assertThat(index.findUserIds(UserAttributeFilter.ALL, 50L, 10)).isEmpty();
+    }
+
+    @Test
+    void keepsBitmapsAlignedAcrossInsertsUpdatesAndRemovals() {
+        UserAttributeIndex index = new UserAttributeIndex();
+        for (long userId = 2000; userId > 0; userId -= 2) {
+            index.upsert(new UserAttributes(userId, userId % 4 == 0, null, null, true));
+        }
+        index.upsert(new UserAttributes(1L, true, true, ReadingLevel.KNOW_BASICS, false));
+        index.upsert(new UserAttributes(4L, false, null, null, true));
+        index.remove(2L);
+        index.remove(777L);
+
+        UserAttributeFilter withChildren = new UserAttributeFilter(null, true, null, null, null);
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.count(withChildren)).isEqualTo(500);
+        assertThat(index.findUserIds(withChildren, null, 3)).containsExactly(1L, 8L, 12L);
+        assertThat(index.findUserIds(new UserAttributeFilter(null, null, true, null, false), null, 10))
+            .containsExactly(1L);
+    }
+
+    @Test
+    void maintainsChildrenCountersAcrossUpdatesAndRemovals() {
+        UserAttributeIndex index = new UserAttributeIndex();
+        index.upsert(new UserAttributes(1L, true, true, null, true));
+        index.upsert(new UserAttributes(2L, true, false, null, true));
+        index.upsert(new UserAttributes(3L, true, null, null, true));
+        index.upsert(new UserAttributes(4L, false, true, null, true));
+        assertThat(index.childrenStats()).isEqualTo(new UserChildrenStats(4, 3, 1, 1));
+
+        index.upsert(new UserAttributes(2L, true, true, null, true));
+        index.upsert(new UserAttributes(4L, true, null, null, true));
+        index.remove(3L);
+        index.remove(99L);
+
+        assertThat(index.childrenStats()).isEqualTo(new UserChildrenStats(3, 3, 2, 0));
+    }
+}
@@ -0,0 +1,176 @@
+package ru.muslim.tajwid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.muslim.tajwid.domain.ReadingLevel;
+import ru.muslim.tajwid.domain.ReferralStatus;
+import ru.muslim.tajwid.domain.UserEntity;
+import ru.muslim.tajwid.repository.FlowContextRepository;
+import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
+import ru.muslim.tajwid.repository.UserRepository;
+import ru.muslim.tajwid.repository.UserTagRepository;
+import ru.muslim.tajwid.support.PostgresContainerTestBase;
+
+@SpringBootTest
+class UserAttributeStoreTest extends PostgresContainerTestBase {
+
+    private static final UserAttributeFilter WITH_CHILDREN = new UserAttributeFilter(null, true, null, null, null);
+
+    @Autowired
+    private UserAttributeStore userAttributeStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FlowContextRepository flowContextRepository;
+
+    @Autowired
+    private UserTagRepository userTagRepository;
+
+    @Autowired
+    private ReferralLinkUsageRepository referralLinkUsageRepository;
+
+    @BeforeEach
+    void cleanDatabase() {
+        referralLinkUsageRepository.deleteAll();
+        userTagRepository.deleteAll();
+        flowContextRepository.deleteAll();
+        userRepository.deleteAll();
+        userAttributeStore.rebuild();
+    }
+
+    @Test
+    void catchUpPicksUpRowsWrittenOutsideThisInstance() {
+        jdbcTemplate.update("""
+            insert into users (user_id, telegram_first_name, user_name, has_children, registration_completed,
+                               registration_completed_at, referral_status, referral_counted_at, referral_link_cp)
+            values (700, 'Amin', 'Амин', true, true, now(), 'NOT_APPLICABLE', now(),
+                    'https://t.me/tajwid_test_bot?start=700')
+            """);
+        assertThat(indexedWithChildren()).isEmpty();
+
+        userAttributeStore.catchUp();
+        assertThat(indexedWithChildren()).containsExactly(700L);
+
+        jdbcTemplate.update("update users set has_children = false, updated_at = now() where user_id = 700");
+        userAttributeStore.catchUp();
+        assertThat(indexedWithChildren()).isEmpty();
+        assertThat(userAttributeStore.count(UserAttributeFilter.ALL)).hasValue(1);
+    }
+
+    @Test
+    void repositoryWritesReachTheIndexThroughDomainEvents() {
+        userRepository.save(newUserWithChildren(701L));
+
+        assertThat(indexedWithChildren()).containsExactly(701L);
+
+        userRepository.delete(userRepository.findByUserId(701L).orElseThrow());
+        assertThat(userAttributeStore.count(UserAttributeFilter.ALL)).hasValue(0);
+    }
+
+    @Test
+    void reconcileRebuildsAfterAWriteTheIndexNeverSaw() {
+        userRepository.save(newUserWithChildren(702L));
+        double driftBefore = drift();
+
+        jdbcTemplate.update("delete from users where user_id = 702");
+        userAttributeStore.reconcile();
+
+        assertThat(drift()).isEqualTo(driftBefore + 1);
+        assertThat(indexedWithChildren()).isEmpty();
+    }
+
+    @Test
+    void reconcileDoesNotRebuildWhileACommittedChangeIsStillBeingApplied() {
+        double driftBefore = drift();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userAttributeStore.reconcile();
+                }
+            });
+            userRepository.save(newUserWithChildren(703L));
+        });
+
+        assertThat(drift()).isEqualTo(driftBefore);
+        assertThat(indexedWithChildren()).containsExactly(703L);
+    }
+
+    @Test
+    void concurrentRebuildsDoNotLoseChangesCommittedMeanwhile() throws Exception {
+        int writers = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                long userId = 710L + i;
+                tasks.add(executor.submit(() -> userAttributeStore.rebuild()));
+                tasks.add(executor.submit(() -> userRepository.save(newUserWithChildren(userId))));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(userAttributeStore.count(UserAttributeFilter.ALL)).hasValue(writers);
+        assertThat(userAttributeStore.count(WITH_CHILDREN)).hasValue(writers);
+
+        userAttributeStore.rebuild();
+        assertThat(userAttributeStore.count(UserAttributeFilter.ALL)).hasValue(writers);
+    }
+
+    private static UserEntity newUserWithChildren(long userId) {
+        UserEntity user = new UserEntity();
+        user.setUserId(userId);
+        user.setTelegramFirstName("Amin");
+        user.setUserName("Амин");
+        user.setReadingLevel(ReadingLevel.KNOW_BASICS);
+        user.setHasChildren(true);
+        user.setChildrenCount(1);
+        user.setRegistrationCompleted(true);
+        user.setReferrerUserId(0);
+        user.setReferralStatus(ReferralStatus.NOT_APPLICABLE);
+        user.setReferralCountedAt(Instant.EPOCH);
+        user.setReferralLinkCp("https://t.me/tajwid_test_bot?start=" + userId);
+        return user;
+    }
+
+    private double drift() {
+        return meterRegistry.get("tajwid.user_index.drift").counter().count();
+    }
+
+    private List<Long> indexedWithChildren() {
+        return userAttributeStore.findUserIds(WITH_CHILDREN, null, 10).orElseThrow();
+    }
+}
@@ -0,0 +1,30 @@
+package ru.muslim.tajwid.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    public static List<String> record(Runnable work) {
+        List<String> statements = new ArrayList<>();
+        RECORDED.set(statements);
+        try {
+            work.run();
+            return List.copyOf(statements);
+        } finally {
+            RECORDED.remove();
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDED.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
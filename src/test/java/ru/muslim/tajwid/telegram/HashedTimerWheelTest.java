@@ -0,0 +1,44 @@
+package ru.muslim.tajwid.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class HashedTimerWheelTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void firesTimersOnlyAfterTheirDeadline() {
+        HashedTimerWheel wheel = new HashedTimerWheel(Duration.ofSeconds(1), 8, START);
+        wheel.schedule(1L, START.plusMillis(1500));
+        wheel.schedule(2L, START.plusSeconds(20));
+
+        assertThat(wheel.advance(START.plusMillis(1100))).isEmpty();
+        assertThat(wheel.advance(START.plusSeconds(2))).containsExactly(1L);
+        assertThat(wheel.advance(START.plusSeconds(10))).isEmpty();
+        assertThat(wheel.advance(START.plusSeconds(20))).containsExactly(2L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesPreviousDeadline() {
+        HashedTimerWheel wheel = new HashedTimerWheel(Duration.ofSeconds(1), 8, START);
+        wheel.schedule(7L, START.plusSeconds(3));
+        wheel.schedule(7L, START.plusSeconds(40));
+
+        assertThat(wheel.advance(START.plusSeconds(5))).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START.plusSeconds(41))).containsExactly(7L);
+    }
+
+    @Test
+    void overdueTimersFireOnNextTick() {
+        HashedTimerWheel wheel = new HashedTimerWheel(Duration.ofSeconds(1), 8, START);
+        wheel.schedule(3L, START.minusSeconds(30));
+
+        assertThat(wheel.advance(START.plusSeconds(1))).containsExactly(3L);
+    }
+}
@@ -0,0 +1,165 @@
+package ru.muslim.tajwid.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.repository.ChannelMembershipRepository;
+import ru.muslim.tajwid.service.ChannelMembershipService;
+import ru.muslim.tajwid.service.SubscriptionCheckResult;
+import ru.muslim.tajwid.support.PostgresContainerTestBase;
+import ru.muslim.tajwid.web.dto.BotUpdateRequest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+@SpringBootTest
+class TelegramChannelSubscriptionServiceTest extends PostgresContainerTestBase {
+
+    private static final String COURSE_CHANNEL_ID = "-100500";
+    private static final String SCHOOL_CHANNEL_ID = "@tartil_madrasa";
+
+    @Autowired
+    private ChannelMembershipService channelMembershipService;
+
+    @Autowired
+    private ChannelMembershipRepository channelMembershipRepository;
+
+    @Autowired
+    private TajwidBotProperties properties;
+
+    private ScriptedChatMemberLookup lookup;
+    private TelegramChannelSubscriptionService subscriptionService;
+    private TelegramWebhookService webhookService;
+
+    @BeforeEach
+    void setUp() {
+        channelMembershipRepository.deleteAll();
+
+        TajwidBotProperties channelProperties = new TajwidBotProperties();
+        channelProperties.getTelegram().setCourseChannelId(COURSE_CHANNEL_ID);
+        channelProperties.getTelegram().setSchoolChannelId(SCHOOL_CHANNEL_ID);
+        channelProperties.getTelegram().getMembershipCache().setEnabled(false);
+
+        lookup = new ScriptedChatMemberLookup();
+        TelegramRuntimeChannelRegistry channelRegistry = new TelegramRuntimeChannelRegistry();
+        TelegramMembershipCache membershipCache =
+            new TelegramMembershipCache(channelProperties, new SimpleMeterRegistry());
+        subscriptionService = new TelegramChannelSubscriptionService(
+            lookup,
+            channelProperties,
+            channelRegistry,
+            membershipCache,
+            channelMembershipService
+        );
+        webhookService = new TelegramWebhookService(
+            new IgnoringUpdateMapper(),
+            null,
+            null,
+            null,
+            channelRegistry,
+            membershipCache,
+            channelMembershipService,
+            channelProperties
+        );
+    }
+
+    @Test
+    void negativeLookupIsNotIndexedSoALaterJoinIsSeenWithoutAPushedEvent() {
+        lookup.status = "left";
+        assertThat(subscriptionService.checkCourseChannelSubscription(1L))
+            .isEqualTo(SubscriptionCheckResult.NOT_SUBSCRIBED);
+        assertThat(channelMembershipService.findStatus(COURSE_CHANNEL_ID, 1L)).isEmpty();
+
+        lookup.status = "member";
+        assertThat(subscriptionService.checkCourseChannelSubscription(1L))
+            .isEqualTo(SubscriptionCheckResult.SUBSCRIBED);
+        assertThat(lookup.calls.get()).isEqualTo(2);
+
+        assertThat(subscriptionService.checkCourseChannelSubscription(1L))
+            .isEqualTo(SubscriptionCheckResult.SUBSCRIBED);
+        assertThat(lookup.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void pushedLeaveIsTrustedOnlyUntilTheIndexNegativeTtlPasses() {
+        Duration negativeTtl = properties.getTelegram().getMembershipCache().getIndexNegativeTtl();
+        channelMembershipService.recordStatus(COURSE_CHANNEL_ID, 1L, "left", Instant.now());
+        channelMembershipService.recordStatus(COURSE_CHANNEL_ID, 2L, "kicked",
+            Instant.now().minus(negativeTtl).minusSeconds(60));
+        lookup.status = "member";
+
+        assertThat(subscriptionService.checkCourseChannelSubscription(1L))
+            .isEqualTo(SubscriptionCheckResult.NOT_SUBSCRIBED);
+        assertThat(lookup.calls.get()).isZero();
+
+        assertThat(subscriptionService.checkCourseChannelSubscription(2L))
+            .isEqualTo(SubscriptionCheckResult.SUBSCRIBED);
+        assertThat(lookup.calls.get()).isEqualTo(1);
+        assertThat(channelMembershipService.findStatus(COURSE_CHANNEL_ID, 2L)).contains("member");
+    }
+
+    @Test
+    void schoolChannelConfiguredByUsernameIsIndexedFromChatMemberEvents() {
+        webhookService.processUpdate(chatMemberUpdate(-100777L, "Tartil_Madrasa", 5L, "member"));
+        webhookService.processUpdate(chatMemberUpdate(-100999L, "other_channel", 5L, "member"));
+
+        assertThat(channelMembershipService.findStatus(SCHOOL_CHANNEL_ID, 5L)).contains("member");
+        assertThat(channelMembershipRepository.count()).isEqualTo(1);
+
+        lookup.status = "left";
+        assertThat(subscriptionService.checkSchoolChannelSubscription(5L))
+            .isEqualTo(SubscriptionCheckResult.SUBSCRIBED);
+        assertThat(lookup.calls.get()).isZero();
+    }
+
+    private static JsonNode chatMemberUpdate(long chatId, String username, long userId, String status) {
+        ObjectNode update = JsonNodeFactory.instance.objectNode();
+        ObjectNode chatMember = update.putObject("chat_member");
+        chatMember.putObject("chat")
+            .put("id", chatId)
+            .put("type", "channel")
+            .put("username", username);
+        ObjectNode newChatMember = chatMember.putObject("new_chat_member");
+        newChatMember.putObject("user").put("id", userId);
+        newChatMember.put("status", status);
+        chatMember.put("date", Instant.now().getEpochSecond());
+        return update;
+    }
+
+    private static final class IgnoringUpdateMapper extends TelegramUpdateMapper {
+
+        private IgnoringUpdateMapper() {
+            super(null);
+        }
+
+        @Override
+        public Optional<BotUpdateRequest> map(JsonNode update) {
+            return Optional.empty();
+        }
+    }
+
+    private static final class ScriptedChatMemberLookup extends TelegramChatMemberLookup {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile String status;
+
+        private ScriptedChatMemberLookup() {
+            super(null, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public String getChatMemberStatus(String chatId, long userId) {
+            calls.incrementAndGet();
+            return status;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ru.muslim.tajwid.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import ru.muslim.tajwid.domain.MessagePriority;
+import ru.muslim.tajwid.web.dto.BotMessageResponse;
+
+class TelegramChatMemberLookupTest {
+
+    private static final String CHAT_ID = "-100500";
+    private static final int CALLERS = 5;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingApiClient apiClient = new BlockingApiClient();
+    private final TelegramChatMemberLookup lookup = new TelegramChatMemberLookup(apiClient, meterRegistry);
+
+    @Test
+    void concurrentCallersShareOneRemoteCall() throws Exception {
+        apiClient.outcome = () -> "member";
+
+        List<Future<String>> results = startCallers();
+        apiClient.release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("member");
+        }
+        assertThat(apiClient.calls.get()).isEqualTo(1);
+        assertThat(lookups("remote")).isEqualTo(1);
+        assertThat(lookups("coalesced")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void failurePropagatesToEveryCallerAndTheNextCallGoesRemoteAgain() throws Exception {
+        IllegalStateException failure = new IllegalStateException("telegram is down");
+        apiClient.outcome = () -> {
+            throw failure;
+        };
+
+        List<Future<String>> results = startCallers();
+        apiClient.release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(failure);
+        }
+
+        apiClient.outcome = () -> "left";
+        assertThat(lookup.getChatMemberStatus(CHAT_ID, 1L)).isEqualTo("left");
+        assertThat(apiClient.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void errorStillCompletesWaitersAndClearsTheInFlightEntry() throws Exception {
+        LinkageError failure = new LinkageError("broken client");
+        apiClient.outcome = () -> {
+            throw failure;
+        };
+
+        List<Future<String>> results = startCallers();
+        apiClient.release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(failure);
+        }
+
+        apiClient.outcome = () -> "member";
+        assertThat(lookup.getChatMemberStatus(CHAT_ID, 1L)).isEqualTo("member");
+    }
+
+    private List<Future<String>> startCallers() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> lookup.getChatMemberStatus(CHAT_ID, 1L)));
+        assertThat(apiClient.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> lookup.getChatMemberStatus(CHAT_ID, 1L)));
+        }
+        executor.shutdown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lookups("coalesced") < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(lookups("coalesced")).isEqualTo(CALLERS - 1);
+        return results;
+    }
+
+    private double lookups(String outcome) {
+        return meterRegistry.get("tajwid.telegram.membership.lookups").tag("outcome", outcome).counter().count();
+    }
+
+    private static final class BlockingApiClient implements TelegramApiClient {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile Supplier<String> outcome;
+
+        @Override
+        public String getChatMemberStatus(String chatId, long userId) {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return outcome.get();
+        }
+
+        @Override
+        public void sendMessage(BotMessageResponse message, MessagePriority priority) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setWebhook(String webhookUrl, String secretToken) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
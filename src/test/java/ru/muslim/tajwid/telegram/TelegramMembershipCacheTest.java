@@ -0,0 +1,85 @@
+package ru.muslim.tajwid.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+
+class TelegramMembershipCacheTest {
+
+    private static final String SCHOOL = "@school";
+    private static final String COURSE = "-100200";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void expiresEntriesAfterTheirTtl() {
+        TelegramMembershipCache cache = cache(100);
+        cache.put(SCHOOL, 1L, "member", true, false);
+        cache.put(SCHOOL, 2L, "left", false, false);
+        cache.put(COURSE, 2L, "left", false, true);
+
+        advance(Duration.ofSeconds(5));
+        assertThat(cache.get(SCHOOL, 1L)).contains("member");
+        assertThat(cache.get(SCHOOL, 2L)).isEmpty();
+        assertThat(cache.get(COURSE, 2L)).contains("left");
+
+        advance(Duration.ofMinutes(2));
+        assertThat(cache.get(COURSE, 2L)).isEmpty();
+        assertThat(cache.get(SCHOOL, 1L)).contains("member");
+
+        advance(Duration.ofMinutes(8));
+        assertThat(cache.get(SCHOOL, 1L)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUsersBeyondMaxEntries() {
+        TelegramMembershipCache cache = cache(3);
+        cache.put(SCHOOL, 1L, "member", true, false);
+        cache.put(SCHOOL, 2L, "member", true, false);
+        cache.put(SCHOOL, 3L, "member", true, false);
+        assertThat(cache.get(SCHOOL, 1L)).contains("member");
+
+        cache.put(SCHOOL, 4L, "member", true, false);
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(SCHOOL, 2L)).isEmpty();
+        assertThat(cache.get(SCHOOL, 1L)).contains("member");
+        assertThat(cache.get(SCHOOL, 3L)).contains("member");
+        assertThat(cache.get(SCHOOL, 4L)).contains("member");
+    }
+
+    @Test
+    void evictUserDropsEveryChatOfThatUserOnly() {
+        TelegramMembershipCache cache = cache(100);
+        cache.put(SCHOOL, 1L, "member", true, false);
+        cache.put(COURSE, 1L, "member", true, true);
+        cache.put(SCHOOL, 2L, "member", true, false);
+
+        cache.evictUser(1L);
+        cache.evictUser(99L);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(SCHOOL, 1L)).isEmpty();
+        assertThat(cache.get(COURSE, 1L)).isEmpty();
+        assertThat(cache.get(SCHOOL, 2L)).contains("member");
+    }
+
+    private TelegramMembershipCache cache(int maxEntries) {
+        TajwidBotProperties properties = new TajwidBotProperties();
+        TajwidBotProperties.MembershipCacheProperties cacheProperties = properties.getTelegram().getMembershipCache();
+        cacheProperties.setMaxEntries(maxEntries);
+        cacheProperties.setPositiveTtl(Duration.ofMinutes(10));
+        cacheProperties.setNegativeTtl(Duration.ofSeconds(5));
+        cacheProperties.setCourseNegativeTtl(Duration.ofMinutes(2));
+        return new TelegramMembershipCache(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,119 @@
+package ru.muslim.tajwid.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import ru.muslim.tajwid.domain.MessagePriority;
+
+class TelegramRateLimiterTest {
+
+    private static final long ONE_GLOBAL_TOKEN = 33_333_334L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void perChatBucketAllowsBurstAndRefillsAtItsRate() {
+        TelegramRateLimiter limiter = limiter();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isZero();
+        }
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isEqualTo(seconds(1));
+        assertThat(waitNanos(limiter, 2L, MessagePriority.INTERACTIVE)).isZero();
+
+        advance(TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(600));
+
+        advance(TimeUnit.MILLISECONDS.toNanos(600));
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isZero();
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isEqualTo(seconds(1));
+    }
+
+    @Test
+    void globalBucketLimitsSendsAcrossChats() {
+        TelegramRateLimiter limiter = limiter();
+
+        for (long chatId = 1; chatId <= 30; chatId++) {
+            assertThat(waitNanos(limiter, chatId, MessagePriority.INTERACTIVE)).isZero();
+        }
+        assertThat(waitNanos(limiter, 31L, MessagePriority.INTERACTIVE)).isEqualTo(ONE_GLOBAL_TOKEN);
+
+        advance(ONE_GLOBAL_TOKEN);
+        assertThat(waitNanos(limiter, 31L, MessagePriority.INTERACTIVE)).isZero();
+        assertThat(waitNanos(limiter, 32L, MessagePriority.INTERACTIVE)).isPositive();
+    }
+
+    @Test
+    void lowerPrioritiesLeaveTheReserveForInteractiveSends() {
+        TelegramRateLimiter limiter = limiter();
+
+        for (long chatId = 1; chatId <= 20; chatId++) {
+            assertThat(waitNanos(limiter, chatId, MessagePriority.BROADCAST)).isZero();
+        }
+        assertThat(waitNanos(limiter, 21L, MessagePriority.BROADCAST)).isEqualTo(ONE_GLOBAL_TOKEN);
+
+        for (long chatId = 21; chatId <= 25; chatId++) {
+            assertThat(waitNanos(limiter, chatId, MessagePriority.AUTOMATION)).isZero();
+        }
+        assertThat(waitNanos(limiter, 26L, MessagePriority.AUTOMATION)).isEqualTo(ONE_GLOBAL_TOKEN);
+
+        for (long chatId = 26; chatId <= 30; chatId++) {
+            assertThat(waitNanos(limiter, chatId, MessagePriority.INTERACTIVE)).isZero();
+        }
+        assertThat(waitNanos(limiter, 31L, MessagePriority.INTERACTIVE)).isEqualTo(ONE_GLOBAL_TOKEN);
+    }
+
+    @Test
+    void retryAfterPausesTheChatAndThenAllChatsWhenSeveralAreThrottled() {
+        TelegramRateLimiter limiter = limiter();
+
+        limiter.onRetryAfter(1L, Duration.ofSeconds(5));
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isEqualTo(seconds(5));
+        assertThat(waitNanos(limiter, 2L, MessagePriority.INTERACTIVE)).isZero();
+
+        advance(seconds(1));
+        limiter.onRetryAfter(2L, Duration.ofSeconds(3));
+        assertThat(waitNanos(limiter, 3L, MessagePriority.INTERACTIVE)).isEqualTo(seconds(3));
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isEqualTo(seconds(3));
+
+        advance(seconds(3));
+        assertThat(waitNanos(limiter, 3L, MessagePriority.INTERACTIVE)).isZero();
+        assertThat(waitNanos(limiter, 2L, MessagePriority.INTERACTIVE)).isZero();
+        assertThat(waitNanos(limiter, 1L, MessagePriority.INTERACTIVE)).isEqualTo(seconds(1));
+    }
+
+    private TelegramRateLimiter limiter() {
+        TajwidBotProperties properties = new TajwidBotProperties();
+        TajwidBotProperties.RateLimitProperties rateLimit = properties.getTelegram().getRateLimit();
+        rateLimit.setGlobalPerSecond(30);
+        rateLimit.setGlobalBurst(30);
+        rateLimit.setPerChatPerSecond(1);
+        rateLimit.setPerChatBurst(3);
+        rateLimit.setAutomationReserve(5);
+        rateLimit.setBroadcastReserve(10);
+        rateLimit.setMaxWait(Duration.ZERO);
+        return new TelegramRateLimiter(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private static long waitNanos(TelegramRateLimiter limiter, long chatId, MessagePriority priority) {
+        try {
+            limiter.acquire(chatId, priority);
+            return 0;
+        } catch (TelegramRateLimitException ex) {
+            return ex.getRetryAfter().toNanos();
+        }
+    }
+
+    private void advance(long nanos) {
+        clock.addAndGet(nanos);
+    }
+
+    private static long seconds(long seconds) {
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
@@ -0,0 +1,180 @@
+package ru.muslim.tajwid.telegram;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import ru.muslim.tajwid.config.TajwidBotProperties;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+class TelegramUpdateDispatcherTest {
+
+    @Test
+    void processesEachUsersUpdatesInArrivalOrder() {
+        RecordingWebhookService webhookService = new RecordingWebhookService();
+        RecordingFailedUpdateRecorder recorder = new RecordingFailedUpdateRecorder();
+        TelegramUpdateDispatcher dispatcher = dispatcher(webhookService, recorder, 4, 100);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(dispatcher.dispatch(messageUpdate(7L, i))).isTrue();
+            assertThat(dispatcher.dispatch(messageUpdate(8L, i))).isTrue();
+        }
+        dispatcher.shutdown();
+
+        assertThat(webhookService.processedUpdateIds(7L)).containsExactlyElementsOf(range(20));
+        assertThat(webhookService.processedUpdateIds(8L)).containsExactlyElementsOf(range(20));
+        assertThat(recorder.failures).isEmpty();
+    }
+
+    @Test
+    void retriesTransientFailuresWithoutRecordingThem() {
+        RecordingWebhookService webhookService = new RecordingWebhookService();
+        webhookService.failuresBeforeSuccess.set(2);
+        RecordingFailedUpdateRecorder recorder = new RecordingFailedUpdateRecorder();
+        TelegramUpdateDispatcher dispatcher = dispatcher(webhookService, recorder, 1, 10);
+
+        assertThat(dispatcher.dispatch(messageUpdate(7L, 1))).isTrue();
+        dispatcher.shutdown();
+
+        assertThat(webhookService.attempts.get()).isEqualTo(3);
+        assertThat(webhookService.processedUpdateIds(7L)).containsExactly(1);
+        assertThat(recorder.failures).isEmpty();
+    }
+
+    @Test
+    void recordsUpdatesThatFailEveryAttempt() {
+        RecordingWebhookService webhookService = new RecordingWebhookService();
+        webhookService.failuresBeforeSuccess.set(Integer.MAX_VALUE);
+        RecordingFailedUpdateRecorder recorder = new RecordingFailedUpdateRecorder();
+        TelegramUpdateDispatcher dispatcher = dispatcher(webhookService, recorder, 1, 10);
+
+        assertThat(dispatcher.dispatch(messageUpdate(7L, 1))).isTrue();
+        assertThat(dispatcher.dispatch(messageUpdate(7L, 2))).isTrue();
+        dispatcher.shutdown();
+
+        assertThat(webhookService.attempts.get()).isEqualTo(6);
+        assertThat(recorder.failures).extracting(FailedUpdate::userId).containsExactly(7L, 7L);
+        assertThat(recorder.failures).extracting(FailedUpdate::updateId).containsExactly(1, 2);
+        assertThat(recorder.failures).extracting(FailedUpdate::attempts).containsExactly(3, 3);
+        assertThat(recorder.failures.getFirst().error()).contains("boom");
+    }
+
+    @Test
+    void rejectsUpdatesWhenTheStripeQueueIsFullAndRecordsUpdatesDroppedAtShutdown() throws Exception {
+        RecordingWebhookService webhookService = new RecordingWebhookService();
+        CountDownLatch release = new CountDownLatch(1);
+        webhookService.gate = release;
+        RecordingFailedUpdateRecorder recorder = new RecordingFailedUpdateRecorder();
+        TajwidBotProperties properties = properties(1, 1);
+        properties.getTelegram().getIntake().setShutdownTimeout(Duration.ZERO);
+        TelegramUpdateDispatcher dispatcher = new TelegramUpdateDispatcher(
+            webhookService, recorder, properties, new SimpleMeterRegistry());
+
+        assertThat(dispatcher.dispatch(messageUpdate(7L, 1))).isTrue();
+        assertThat(webhookService.started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.dispatch(messageUpdate(7L, 2))).isTrue();
+        assertThat(dispatcher.dispatch(messageUpdate(7L, 3))).isFalse();
+
+        dispatcher.shutdown();
+        release.countDown();
+
+        assertThat(recorder.failures).extracting(FailedUpdate::updateId).contains(2);
+        assertThat(recorder.failures).extracting(FailedUpdate::updateId).doesNotContain(3);
+    }
+
+    private static TelegramUpdateDispatcher dispatcher(RecordingWebhookService webhookService,
+                                                       RecordingFailedUpdateRecorder recorder,
+                                                       int stripes,
+                                                       int queueCapacity) {
+        return new TelegramUpdateDispatcher(
+            webhookService, recorder, properties(stripes, queueCapacity), new SimpleMeterRegistry());
+    }
+
+    private static TajwidBotProperties properties(int stripes, int queueCapacity) {
+        TajwidBotProperties properties = new TajwidBotProperties();
+        TajwidBotProperties.IntakeProperties intake = properties.getTelegram().getIntake();
+        intake.setAsync(true);
+        intake.setStripes(stripes);
+        intake.setQueueCapacity(queueCapacity);
+        intake.setMaxAttempts(3);
+        intake.setRetryDelay(Duration.ZERO);
+        intake.setShutdownTimeout(Duration.ofSeconds(10));
+        return properties;
+    }
+
+    private static JsonNode messageUpdate(long userId, int updateId) {
+        ObjectNode update = JsonNodeFactory.instance.objectNode();
+        update.put("update_id", updateId);
+        update.putObject("message").putObject("from").put("id", userId);
+        return update;
+    }
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    private record FailedUpdate(long userId, int updateId, int attempts, String error) {
+    }
+
+    private static final class RecordingWebhookService extends TelegramWebhookService {
+
+        private final Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        private RecordingWebhookService() {
+            super(null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public void processUpdate(JsonNode telegramUpdate) {
+            attempts.incrementAndGet();
+            started.countDown();
+            CountDownLatch currentGate = gate;
+            if (currentGate != null) {
+                try {
+                    currentGate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failuresBeforeSuccess.getAndDecrement() > 0) {
+                throw new IllegalStateException("boom");
+            }
+            long userId = telegramUpdate.path("message").path("from").path("id").longValue();
+            processed.computeIfAbsent(userId, ignored -> new CopyOnWriteArrayList<>())
+                .add(telegramUpdate.path("update_id").intValue());
+        }
+
+        private List<Integer> processedUpdateIds(long userId) {
+            return processed.getOrDefault(userId, List.of());
+        }
+    }
+
+    private static final class RecordingFailedUpdateRecorder extends TelegramFailedUpdateRecorder {
+
+        private final List<FailedUpdate> failures = new CopyOnWriteArrayList<>();
+
+        private RecordingFailedUpdateRecorder() {
+            super(null);
+        }
+
+        @Override
+        public void record(JsonNode update, long userId, int attempts, String error) {
+            failures.add(new FailedUpdate(userId, update.path("update_id").intValue(), attempts, error));
+        }
+    }
+}
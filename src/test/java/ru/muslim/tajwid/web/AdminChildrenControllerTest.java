@@ -78,6 +78,60 @@ class AdminChildrenControllerTest extends PostgresContainerTestBase {
             .containsExactly(902L);
     }
 
+    @Test
+    void getUsersPagesWithAfterUserIdCursor() {
+        List<AdminChildrenUserResponse> firstPage = adminRestClient()
+            .get()
+            .uri("/api/admin/children/users?limit=2")
+            .retrieve()
+            .body(new ParameterizedTypeReference<>() {});
+
+        assertThat(firstPage).extracting(AdminChildrenUserResponse::userId)
+            .containsExactly(900L, 901L);
+
+        List<AdminChildrenUserResponse> secondPage = adminRestClient()
+            .get()
+            .uri("/api/admin/children/users?limit=2&afterUserId={afterUserId}", firstPage.getLast().userId())
+            .retrieve()
+            .body(new ParameterizedTypeReference<>() {});
+
+        assertThat(secondPage).extracting(AdminChildrenUserResponse::userId)
+            .containsExactly(902L);
+
+        List<AdminChildrenUserResponse> searchPage = adminRestClient()
+            .post()
+            .uri("/api/admin/children/search")
+            .body(new AdminChildrenSearchRequest(null, true, null, null, true, 1, 901L))
+            .retrieve()
+            .body(new ParameterizedTypeReference<>() {});
+
+        assertThat(searchPage).extracting(AdminChildrenUserResponse::userId)
+            .containsExactly(902L);
+    }
+
+    @Test
+    void getByPhoneMatchesNormalizedDigits() {
+        UserEntity user = userRepository.findByUserId(902L).orElseThrow();
+        user.setPhone("+7 (917) 555-66-77");
+        userRepository.save(user);
+
+        List<AdminChildrenUserResponse> found = adminRestClient()
+            .get()
+            .uri("/api/admin/children/users/by-phone?phone={phone}", "7-917-555-66-77")
+            .retrieve()
+            .body(new ParameterizedTypeReference<>() {});
+
+        assertThat(found).extracting(AdminChildrenUserResponse::userId)
+            .containsExactly(902L);
+
+        HttpStatusCode status = adminRestClient()
+            .get()
+            .uri("/api/admin/children/users/by-phone?phone=none")
+            .exchange((request, response) -> response.getStatusCode());
+
+        assertThat(status.value()).isEqualTo(400);
+    }
+
     @Test
     void searchPostReturnsFilteredUsers() {
         AdminChildrenSearchRequest request = new AdminChildrenSearchRequest(
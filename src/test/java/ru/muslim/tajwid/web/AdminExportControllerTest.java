@@ -25,7 +25,7 @@ import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
 import ru.muslim.tajwid.repository.UserRepository;
 import ru.muslim.tajwid.repository.UserTagRepository;
 import ru.muslim.tajwid.support.PostgresContainerTestBase;
-import ru.muslim.tajwid.web.dto.AdminExportSnapshotResponse;
+import tools.jackson.databind.JsonNode;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class AdminExportControllerTest extends PostgresContainerTestBase {
@@ -60,21 +60,44 @@ class AdminExportControllerTest extends PostgresContainerTestBase {
 
     @Test
     void snapshotExportReturnsAllCollections() throws Exception {
-        AdminExportSnapshotResponse snapshot = adminRestClient()
+        JsonNode snapshot = adminRestClient()
             .get()
             .uri("/api/admin/export/snapshot")
             .retrieve()
-            .body(AdminExportSnapshotResponse.class);
+            .body(JsonNode.class);
 
         assertThat(snapshot).isNotNull();
-        assertThat(snapshot.users()).hasSize(2);
-        assertThat(snapshot.users()).anyMatch(user -> user.userId().equals(501L));
-        assertThat(snapshot.flowContexts()).hasSize(1);
-        assertThat(snapshot.flowContexts().getFirst().currentStep()).isEqualTo(FlowStep.FLOW2_WAIT_TERMS);
-        assertThat(snapshot.userTags()).hasSize(1);
-        assertThat(snapshot.userTags().getFirst().tag()).isEqualTo("Подписка с бота");
-        assertThat(snapshot.referralLinkUsages()).hasSize(1);
-        assertThat(snapshot.referralLinkUsages().getFirst().idempotencyKey()).isEqualTo("ref:500:501");
+        assertThat(snapshot.get("users")).hasSize(2);
+        assertThat(snapshot.get("users").get(1).get("userId").asLong()).isEqualTo(501L);
+        assertThat(snapshot.get("flowContexts")).hasSize(1);
+        assertThat(snapshot.get("flowContexts").get(0).get("currentStep").asText())
+            .isEqualTo(FlowStep.FLOW2_WAIT_TERMS.name());
+        assertThat(snapshot.get("userTags")).hasSize(1);
+        assertThat(snapshot.get("userTags").get(0).get("tag").asText()).isEqualTo("Подписка с бота");
+        assertThat(snapshot.get("referralLinkUsages")).hasSize(1);
+        assertThat(snapshot.get("referralLinkUsages").get(0).get("idempotencyKey").asText())
+            .isEqualTo("ref:500:501");
+    }
+
+    @Test
+    void ndjsonSnapshotStreamsOneLinePerRowWithTableName() {
+        ResponseEntity<String> response = adminRestClient()
+            .get()
+            .uri("/api/admin/export/snapshot.ndjson")
+            .retrieve()
+            .toEntity(String.class);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(response.getHeaders().getContentType()).isNotNull();
+        assertThat(response.getHeaders().getContentType().toString()).contains("application/x-ndjson");
+
+        String[] lines = response.getBody().strip().split("\n");
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).startsWith("{\"table\":\"users\",\"row\":{\"userId\":500,");
+        assertThat(lines[2]).startsWith("{\"table\":\"flowContexts\"");
+        assertThat(lines[2]).contains("\"currentStep\":\"FLOW2_WAIT_TERMS\"");
+        assertThat(lines[3]).contains("\"tag\":\"Подписка с бота\"");
+        assertThat(lines[4]).contains("\"alreadyCounted\":true");
     }
 
     @Test
@@ -99,6 +122,44 @@ class AdminExportControllerTest extends PostgresContainerTestBase {
         assertThat(csv).contains("https://t.me/tajwid_test_bot?start=501");
     }
 
+    @Test
+    void usersDeltaCsvReturnsOnlyRowsChangedSinceCursor() {
+        ResponseEntity<String> firstPage = usersDelta("/api/admin/export/users.delta.csv?limit=1");
+        assertThat(firstPage.getHeaders().getFirst(AdminExportController.HAS_MORE_HEADER)).isEqualTo("true");
+        assertThat(firstPage.getBody().strip().split("\n")).hasSize(2);
+        assertThat(firstPage.getBody()).contains("\n500,");
+
+        String cursor = firstPage.getHeaders().getFirst(AdminExportController.NEXT_CURSOR_HEADER);
+        ResponseEntity<String> secondPage = usersDelta("/api/admin/export/users.delta.csv?since=" + cursor);
+        assertThat(secondPage.getHeaders().getFirst(AdminExportController.HAS_MORE_HEADER)).isEqualTo("false");
+        assertThat(secondPage.getBody().strip().split("\n")).hasSize(2);
+        assertThat(secondPage.getBody()).contains("\n501,");
+
+        cursor = secondPage.getHeaders().getFirst(AdminExportController.NEXT_CURSOR_HEADER);
+        ResponseEntity<String> idle = usersDelta("/api/admin/export/users.delta.csv?since=" + cursor);
+        assertThat(idle.getBody().strip().split("\n")).hasSize(1);
+        assertThat(idle.getHeaders().getFirst(AdminExportController.NEXT_CURSOR_HEADER)).isEqualTo(cursor);
+
+        UserEntity referrer = userRepository.findByUserId(500L).orElseThrow();
+        referrer.setReferralPoints(1);
+        userRepository.save(referrer);
+
+        ResponseEntity<String> changed = usersDelta("/api/admin/export/users.delta.csv?since=" + cursor);
+        String[] lines = changed.getBody().strip().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith("500,");
+    }
+
+    @Test
+    void deltaCsvRejectsMalformedCursor() {
+        HttpStatusCode status = adminRestClient()
+            .get()
+            .uri("/api/admin/export/flow-contexts.delta.csv?since=not-a-cursor")
+            .exchange((request, response) -> response.getStatusCode());
+
+        assertThat(status.value()).isEqualTo(400);
+    }
+
     @Test
     void adminExportRequiresAuthentication() {
         HttpStatusCode status = anonymousRestClient()
@@ -183,6 +244,14 @@ class AdminExportControllerTest extends PostgresContainerTestBase {
         referralLinkUsageRepository.save(usage);
     }
 
+    private ResponseEntity<String> usersDelta(String uri) {
+        return adminRestClient()
+            .get()
+            .uri(uri)
+            .retrieve()
+            .toEntity(String.class);
+    }
+
     private RestClient adminRestClient() {
         return RestClient.builder()
             .baseUrl("http://localhost:" + port)
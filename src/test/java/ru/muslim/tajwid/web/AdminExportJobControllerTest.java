@@ -0,0 +1,173 @@
+package ru.muslim.tajwid.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClient;
+import ru.muslim.tajwid.repository.FlowContextRepository;
+import ru.muslim.tajwid.repository.ReferralLinkUsageRepository;
+import ru.muslim.tajwid.repository.UserRepository;
+import ru.muslim.tajwid.repository.UserTagRepository;
+import ru.muslim.tajwid.service.ExportJobFormat;
+import ru.muslim.tajwid.service.ExportJobStatus;
+import ru.muslim.tajwid.support.PostgresContainerTestBase;
+import ru.muslim.tajwid.web.dto.ExportJobRequest;
+import ru.muslim.tajwid.web.dto.ExportJobResponse;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AdminExportJobControllerTest extends PostgresContainerTestBase {
+
+    private static final String ADMIN_USERNAME = "test_admin";
+    private static final String ADMIN_PASSWORD = "test_secret";
+    private static final Duration JOB_TIMEOUT = Duration.ofSeconds(30);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FlowContextRepository flowContextRepository;
+
+    @Autowired
+    private UserTagRepository userTagRepository;
+
+    @Autowired
+    private ReferralLinkUsageRepository referralLinkUsageRepository;
+
+    @BeforeEach
+    void setUp() {
+        referralLinkUsageRepository.deleteAll();
+        userTagRepository.deleteAll();
+        flowContextRepository.deleteAll();
+        userRepository.deleteAll();
+
+        insertUser(700L, "Амин");
+        insertUser(701L, "Марьям");
+    }
+
+    @Test
+    void completedJobIsDownloadableWithRangesAndReusedUntilDataChanges() throws Exception {
+        ExportJobResponse job = awaitCompletion(submit(ExportJobFormat.USERS_CSV, false));
+        assertThat(job.downloadUrl()).isEqualTo("/api/admin/export/jobs/" + job.id() + "/file");
+
+        ResponseEntity<byte[]> full = download(job.downloadUrl(), Map.of());
+        String csv = new String(full.getBody(), StandardCharsets.UTF_8);
+        assertThat(full.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(full.getHeaders().getContentLength()).isEqualTo(job.sizeBytes());
+        assertThat(csv).startsWith("user_id,telegram_first_name,");
+        assertThat(csv).contains("\n700,", "\n701,");
+
+        ResponseEntity<byte[]> partial = download(job.downloadUrl(), Map.of(HttpHeaders.RANGE, "bytes=0-6"));
+        assertThat(partial.getStatusCode().value()).isEqualTo(206);
+        assertThat(partial.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes 0-6/" + job.sizeBytes());
+        assertThat(new String(partial.getBody(), StandardCharsets.UTF_8)).isEqualTo("user_id");
+
+        assertThat(submit(ExportJobFormat.USERS_CSV, false).id()).isEqualTo(job.id());
+
+        jdbcTemplate.update("update users set user_name = ?, updated_at = ? where user_id = ?",
+            "Амина", Timestamp.from(Instant.now()), 701L);
+        ExportJobResponse refreshed = awaitCompletion(submit(ExportJobFormat.USERS_CSV, false));
+        assertThat(refreshed.id()).isNotEqualTo(job.id());
+        assertThat(new String(download(refreshed.downloadUrl(), Map.of()).getBody(), StandardCharsets.UTF_8))
+            .contains("Амина");
+    }
+
+    @Test
+    void gzipJobProducesCompressedNdjsonSnapshot() throws Exception {
+        ExportJobResponse job = awaitCompletion(submit(ExportJobFormat.SNAPSHOT_NDJSON, true));
+
+        ResponseEntity<byte[]> response = download(job.downloadUrl(), Map.of());
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+            .contains("tajwid-snapshot.ndjson.gz");
+        assertThat(response.getHeaders().getContentType().toString()).isEqualTo("application/gzip");
+
+        String ndjson;
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            ndjson = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(ndjson.strip().split("\n")).hasSize(2);
+        assertThat(ndjson).contains("{\"table\":\"users\",\"row\":{\"userId\":700,");
+    }
+
+    @Test
+    void unknownJobReturnsNotFound() {
+        int status = adminRestClient()
+            .get()
+            .uri("/api/admin/export/jobs/missing")
+            .exchange((request, response) -> response.getStatusCode().value());
+
+        assertThat(status).isEqualTo(404);
+    }
+
+    private ExportJobResponse submit(ExportJobFormat format, boolean gzip) {
+        ResponseEntity<ExportJobResponse> response = adminRestClient()
+            .post()
+            .uri("/api/admin/export/jobs")
+            .body(new ExportJobRequest(format, gzip))
+            .retrieve()
+            .toEntity(ExportJobResponse.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(202);
+        return response.getBody();
+    }
+
+    private ExportJobResponse awaitCompletion(ExportJobResponse job) throws InterruptedException {
+        Instant deadline = Instant.now().plus(JOB_TIMEOUT);
+        ExportJobResponse current = job;
+        while (current.status() != ExportJobStatus.COMPLETED && Instant.now().isBefore(deadline)) {
+            assertThat(current.status()).isNotEqualTo(ExportJobStatus.FAILED);
+            Thread.sleep(50);
+            current = adminRestClient()
+                .get()
+                .uri("/api/admin/export/jobs/" + job.id())
+                .retrieve()
+                .body(ExportJobResponse.class);
+        }
+        assertThat(current.status()).isEqualTo(ExportJobStatus.COMPLETED);
+        return current;
+    }
+
+    private ResponseEntity<byte[]> download(String url, Map<String, String> headers) {
+        return adminRestClient()
+            .get()
+            .uri(url)
+            .headers(httpHeaders -> headers.forEach(httpHeaders::set))
+            .retrieve()
+            .toEntity(byte[].class);
+    }
+
+    private void insertUser(long userId, String userName) {
+        jdbcTemplate.update("""
+            insert into users (user_id, telegram_first_name, user_name, registration_completed,
+                               referral_status, referral_counted_at, referral_link_cp)
+            values (?, ?, ?, true, 'NOT_APPLICABLE', now(), ?)
+            """, userId, "User " + userId, userName, "https://t.me/tajwid_test_bot?start=" + userId);
+    }
+
+    private RestClient adminRestClient() {
+        return RestClient.builder()
+            .baseUrl("http://localhost:" + port)
+            .defaultHeaders(headers -> headers.setBasicAuth(ADMIN_USERNAME, ADMIN_PASSWORD))
+            .build();
+    }
+}